@@ -0,0 +1,257 @@
+from typing import Dict, List, Optional, Tuple
+import argparse
+import csv
+import os
+import re
+import subprocess
+import time
+
+
+SCRIPT_PATH = os.path.dirname(os.path.realpath(__file__))
+ROOT_PATH = os.path.abspath(os.path.join(SCRIPT_PATH, '..'))
+
+ALGORITHMS = ['dfs', 'astar', 'ao']
+FEATURES = ['nodes', 'density', 'ccr', 'width', 'cpr', 'processors']
+DEFAULT_COMMAND = 'java -jar build/libs/scheduler.jar {graph} {processors} -a {algorithm} -s'
+DEFAULT_OUTPUT = os.path.join(ROOT_PATH, 'src', 'main', 'resources', 'algorithm-selection.txt')
+
+NODE_PATTERN = re.compile(r'^\s*"?([^"\s\[]+)"?\s*\[\s*Weight\s*=\s*(\d+)\s*\]')
+EDGE_PATTERN = re.compile(r'^\s*"?([^"\s\[]+)"?\s*->\s*"?([^"\s\[]+)"?\s*\[\s*Weight\s*=\s*(\d+)\s*\]')
+PROCESSORS_PATTERN = re.compile(r'-(\d+)\.dot$')
+
+
+def read_graph(path: str) -> Tuple[Dict[str, int], List[Tuple[str, str, int]]]:
+    """
+    Reads the task weights and edges of a DOT graph in the format of the bundled optimal graphs.
+    """
+    weights = {}
+    edges = []
+    with open(path) as file:
+        for line in file:
+            edge_match = EDGE_PATTERN.match(line)
+            if edge_match:
+                edges.append((edge_match.group(1), edge_match.group(2), int(edge_match.group(3))))
+                continue
+            node_match = NODE_PATTERN.match(line)
+            if node_match:
+                weights[node_match.group(1)] = int(node_match.group(2))
+    return weights, edges
+
+
+def get_width(tasks: List[str], edges: List[Tuple[str, str, int]]) -> int:
+    """
+    Returns the width of the graph, computed the same way as Graph#setWidth: the number of tasks
+    minus the size of a maximum matching in the bipartite graph of the reachability relation.
+    """
+    children = {task: [] for task in tasks}
+    for source, destination, _ in edges:
+        children[source].append(destination)
+
+    descendants = {}
+
+    def get_descendants(task: str) -> set:
+        if task not in descendants:
+            result = set()
+            for child in children[task]:
+                result.add(child)
+                result |= get_descendants(child)
+            descendants[task] = result
+        return descendants[task]
+
+    matched_ancestors = {}
+
+    def find_augmenting_path(task: str, visited: set) -> bool:
+        for descendant in get_descendants(task):
+            if descendant in visited:
+                continue
+            visited.add(descendant)
+            if descendant not in matched_ancestors or find_augmenting_path(
+                    matched_ancestors[descendant], visited):
+                matched_ancestors[descendant] = task
+                return True
+        return False
+
+    matching_size = sum(1 for task in tasks if find_augmenting_path(task, set()))
+    return len(tasks) - matching_size
+
+
+def get_features(path: str, processors: int) -> Dict[str, float]:
+    """
+    Computes the features of a graph, which must match GraphFeatures#of in the Java code.
+    """
+    weights, edges = read_graph(path)
+    tasks = list(weights)
+    task_count = len(tasks)
+    total_task_weight = sum(weights.values())
+
+    children = {task: [] for task in tasks}
+    for source, destination, _ in edges:
+        children[source].append(destination)
+    bottom_levels = {}
+
+    def get_bottom_level(task: str) -> int:
+        if task not in bottom_levels:
+            bottom_levels[task] = weights[task] + max(
+                (get_bottom_level(child) for child in children[task]), default=0)
+        return bottom_levels[task]
+
+    critical_path = max((get_bottom_level(task) for task in tasks), default=0)
+    max_edge_count = task_count * (task_count - 1) / 2
+
+    return {
+        'nodes': task_count,
+        'density': len(edges) / max_edge_count if max_edge_count > 0 else 0,
+        'ccr': sum(weight for _, _, weight in edges) / total_task_weight
+        if total_task_weight > 0 else 0,
+        'width': get_width(tasks, edges),
+        'cpr': critical_path / total_task_weight if total_task_weight > 0 else 0,
+        'processors': processors,
+    }
+
+
+def time_algorithm(command: str, path: str, processors: int, algorithm: str,
+                   timeout: float) -> Optional[float]:
+    """
+    Returns how many seconds the scheduler took to find the optimal schedule, or None if it timed
+    out or failed (e.g. by running out of memory).
+    """
+    arguments = command.format(graph=path, processors=processors, algorithm=algorithm).split()
+    start_time = time.monotonic()
+    try:
+        subprocess.run(arguments, stdout=subprocess.DEVNULL, stderr=subprocess.DEVNULL,
+                       timeout=timeout, check=True, cwd=ROOT_PATH)
+    except (subprocess.TimeoutExpired, subprocess.CalledProcessError):
+        return None
+    return time.monotonic() - start_time
+
+
+def measure(corpus: str, stride: int, command: str, timeout: float) -> List[Dict[str, float]]:
+    """
+    Times every algorithm on every stride-th graph in each directory of the corpus.
+    """
+    samples = []
+    for directory in sorted(os.listdir(corpus)):
+        directory_path = os.path.join(corpus, directory)
+        if not os.path.isdir(directory_path):
+            continue
+        paths = sorted(os.listdir(directory_path))[::stride]
+        for filename in paths:
+            processors_match = PROCESSORS_PATTERN.search(filename)
+            if not processors_match:
+                continue
+            path = os.path.join(directory_path, filename)
+            processors = int(processors_match.group(1))
+            sample = get_features(path, processors)
+            for algorithm in ALGORITHMS:
+                sample[algorithm] = time_algorithm(command, path, processors, algorithm, timeout)
+            print(filename, {algorithm: sample[algorithm] for algorithm in ALGORITHMS}, flush=True)
+            samples.append(sample)
+    return samples
+
+
+def get_cost(sample: Dict[str, float], algorithm: str, timeout: float) -> float:
+    """
+    Returns the cost of choosing the algorithm for the sample. Timeouts and failures are
+    penalised as we don't know how much longer they would have taken.
+    """
+    seconds = sample[algorithm]
+    return 2 * timeout if seconds is None else seconds
+
+
+def get_best_algorithm(samples: List[Dict[str, float]], timeout: float) -> Tuple[str, float]:
+    """
+    Returns the single algorithm with the lowest total cost over the samples, and that cost.
+    """
+    costs = {algorithm: sum(get_cost(sample, algorithm, timeout) for sample in samples)
+             for algorithm in ALGORITHMS}
+    best_algorithm = min(ALGORITHMS, key=lambda algorithm: costs[algorithm])
+    return best_algorithm, costs[best_algorithm]
+
+
+def train(samples: List[Dict[str, float]], timeout: float, depth: int,
+          min_leaf_size: int) -> List[Tuple[List[str], str]]:
+    """
+    Greedily trains a decision tree over the features which minimises the total cost of its
+    choices, and flattens it into a list of rules where the first matching rule wins.
+    """
+    best_algorithm, best_cost = get_best_algorithm(samples, timeout)
+    best_split = None
+    if depth > 0:
+        for feature in FEATURES:
+            values = sorted(set(sample[feature] for sample in samples))
+            for lower, upper in zip(values, values[1:]):
+                threshold = (lower + upper) / 2
+                left = [sample for sample in samples if sample[feature] <= threshold]
+                right = [sample for sample in samples if sample[feature] > threshold]
+                if len(left) < min_leaf_size or len(right) < min_leaf_size:
+                    continue
+                cost = get_best_algorithm(left, timeout)[1] + get_best_algorithm(right, timeout)[1]
+                if cost < best_cost:
+                    best_cost = cost
+                    best_split = (feature, threshold, left, right)
+
+    if best_split is None:
+        return [([], best_algorithm)]
+
+    feature, threshold, left, right = best_split
+    rules = []
+    for conditions, algorithm in train(left, timeout, depth - 1, min_leaf_size):
+        rules.append(([f'{feature}<={threshold:g}'] + conditions, algorithm))
+    for conditions, algorithm in train(right, timeout, depth - 1, min_leaf_size):
+        rules.append(([f'{feature}>{threshold:g}'] + conditions, algorithm))
+    return rules
+
+
+def write_model(rules: List[Tuple[List[str], str]], sample_count: int, output: str) -> None:
+    """
+    Writes the rules to the model file that AlgorithmSelector loads.
+    """
+    os.makedirs(os.path.dirname(output), exist_ok=True)
+    with open(output, 'w') as file:
+        file.write('# The model used to choose an algorithm for `-a auto`. Generated by\n')
+        file.write(f'# scripts/TrainAlgorithmSelector.py from {sample_count} timed graphs, so do\n')
+        file.write('# not modify this file directly.\n')
+        file.write('#\n')
+        file.write('# Each rule is a list of conditions on the graph features followed by an\n')
+        file.write('# algorithm. The algorithm of the first rule whose conditions all hold is used.\n')
+        for conditions, algorithm in rules:
+            file.write(' '.join(conditions + [algorithm]) + '\n')
+
+
+def main() -> None:
+    parser = argparse.ArgumentParser(
+        description='Times each algorithm on a sample of the optimal graphs and trains the model '
+                    'used by `-a auto` to choose between them.')
+    parser.add_argument('--corpus', default=os.path.join(ROOT_PATH, 'graphs', 'optimal'))
+    parser.add_argument('--stride', type=int, default=20,
+                        help='only time every stride-th graph in each directory')
+    parser.add_argument('--timeout', type=float, default=30, help='seconds per run')
+    parser.add_argument('--command', default=DEFAULT_COMMAND,
+                        help='the command to run the scheduler with')
+    parser.add_argument('--measurements', help='a CSV file to save the timings to')
+    parser.add_argument('--from-measurements',
+                        help='train from a CSV file of saved timings instead of timing again')
+    parser.add_argument('--depth', type=int, default=2)
+    parser.add_argument('--min-leaf-size', type=int, default=5)
+    parser.add_argument('--output', default=DEFAULT_OUTPUT)
+    arguments = parser.parse_args()
+
+    if arguments.from_measurements:
+        with open(arguments.from_measurements) as file:
+            samples = [{key: float(value) if value else None for key, value in row.items()}
+                       for row in csv.DictReader(file)]
+    else:
+        samples = measure(arguments.corpus, arguments.stride, arguments.command,
+                          arguments.timeout)
+        if arguments.measurements:
+            with open(arguments.measurements, 'w', newline='') as file:
+                writer = csv.DictWriter(file, fieldnames=FEATURES + ALGORITHMS)
+                writer.writeheader()
+                writer.writerows(samples)
+
+    rules = train(samples, arguments.timeout, arguments.depth, arguments.min_leaf_size)
+    write_model(rules, len(samples), arguments.output)
+
+
+if __name__ == '__main__':
+    main()
@@ -1,12 +1,18 @@
 package nz.ac.auckland.se306.group12;
 
 import java.io.IOException;
+import java.util.List;
 import nz.ac.auckland.se306.group12.cli.CommandLineParser;
+import nz.ac.auckland.se306.group12.exceptions.IllegalScheduleException;
 import nz.ac.auckland.se306.group12.factories.SchedulerFactory;
 import nz.ac.auckland.se306.group12.io.DotGraphIO;
 import nz.ac.auckland.se306.group12.models.CommandLineArguments;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.scheduler.LocalSearchImprover;
+import nz.ac.auckland.se306.group12.scheduler.ProcessorSweep;
+import nz.ac.auckland.se306.group12.scheduler.ProcessorSweep.Point;
 import nz.ac.auckland.se306.group12.scheduler.Scheduler;
 import nz.ac.auckland.se306.group12.visualizer.TerminalVisualizer;
 
@@ -19,20 +25,98 @@ public class Main {
     CommandLineArguments arguments = parser.parse(args);
     try {
       Graph graph = dotGraphIO.readDotGraph(arguments.inputDotGraph());
-      Scheduler scheduler = new SchedulerFactory().getScheduler(arguments);
+      Scheduler scheduler = new SchedulerFactory().getScheduler(arguments, graph);
+
+      if (arguments.sweepMaxProcessorCount() != null) {
+        List<Point> curve = new ProcessorSweep(graph, scheduler, arguments.timeLimit())
+            .sweep(arguments.processorCount(), arguments.sweepMaxProcessorCount());
+        printCurve(curve);
+        return;
+      }
 
       if (arguments.visualiseSearch()) {
         new TerminalVisualizer(graph, scheduler, arguments.parallelisationProcessorCount());
       }
 
-      Schedule schedule = scheduler.schedule(graph, arguments.processorCount());
+      if (arguments.improveIncumbent()) {
+        // A daemon thread so that it never keeps the program alive after scheduling has finished
+        Thread improver = new Thread(
+            new LocalSearchImprover(graph, scheduler, arguments.processorCount()));
+        improver.setDaemon(true);
+        improver.start();
+      }
+
+      Schedule initialIncumbent = null;
+      if (arguments.warmStartSchedule() != null) {
+        initialIncumbent = readWarmStart(dotGraphIO, arguments, graph, scheduler);
+      }
+
+      Schedule schedule = scheduler.schedule(
+          graph, arguments.processorCount(), arguments.timeLimit(), initialIncumbent);
+      if (schedule == null) {
+        // The time limit passed before any complete schedule was found
+        schedule = new LocalSearchImprover(graph, scheduler, arguments.processorCount())
+            .getListSchedule();
+      }
 
       dotGraphIO.writeDotGraph(arguments, schedule, graph);
 
+      // With an epsilon or a time limit the schedule might not be optimal, so report how far from
+      // optimal it could be. Written to stderr so that it doesn't end up in a schedule written to
+      // stdout
+      int makespan = schedule.getLatestEndTime();
+      int lowerBound = scheduler.getLowerBound();
+      if (lowerBound < makespan) {
+        System.err.printf("The makespan of %d is at most %.2f%% above optimal, as the optimal "
+                + "makespan is at least %d.%n", makespan,
+            100.0 * (makespan - lowerBound) / Math.max(1, lowerBound), lowerBound);
+      }
+
     } catch (IOException e) {
       e.printStackTrace();
       System.exit(1);
     }
   }
 
+  /**
+   * Reads the previous schedule to warm start from and re-times it with the current weights of the
+   * graph. If it doesn't place every task of the graph (E.g. because tasks have been added since),
+   * or isn't a valid schedule at all, a warning is printed and the search starts from scratch
+   * instead.
+   *
+   * @param dotGraphIO The DOT reader to read the previous schedule with
+   * @param arguments  The parsed commandline arguments
+   * @param graph      The graph being scheduled
+   * @param scheduler  The scheduler that will schedule the graph
+   * @return The re-timed previous schedule, or {@code null} if it can't be used
+   * @throws IOException If an error occurs while reading the previous schedule
+   */
+  private static Schedule readWarmStart(DotGraphIO dotGraphIO, CommandLineArguments arguments,
+      Graph graph, Scheduler scheduler) throws IOException {
+    try {
+      ScheduledTask[] placements =
+          dotGraphIO.readDotSchedule(arguments.warmStartSchedule(), graph);
+      return new LocalSearchImprover(graph, scheduler, arguments.processorCount())
+          .retime(placements);
+    } catch (IllegalScheduleException e) {
+      System.err.println(e.getMessage() + " Starting from scratch instead.");
+      return null;
+    }
+  }
+
+  /**
+   * Prints the curve of makespan against the number of processors from a sweep to stdout as CSV.
+   * The lower bound is only below the makespan if the search on that many processors was stopped
+   * by the time limit.
+   *
+   * @param curve The points of the curve, in increasing order of processors
+   */
+  private static void printCurve(List<Point> curve) {
+    System.out.println("processors,makespan,lower_bound,searched");
+    for (Point point : curve) {
+      System.out.printf("%d,%d,%d,%b%n", point.processorCount(),
+          point.schedule().getLatestEndTime(), point.lowerBound(), point.isSearched());
+    }
+  }
+
 }
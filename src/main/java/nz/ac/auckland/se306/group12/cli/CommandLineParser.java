@@ -1,12 +1,14 @@
 package nz.ac.auckland.se306.group12.cli;
 
 import java.io.File;
+import java.time.Duration;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.helper.HelpScreenException;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
+import nz.ac.auckland.se306.group12.factories.SchedulerFactory;
 import nz.ac.auckland.se306.group12.io.FileIO;
 import nz.ac.auckland.se306.group12.models.CommandLineArguments;
 
@@ -51,12 +53,15 @@ public class CommandLineParser {
         .help("the number of processors on which to schedule the INPUT graph");
     this.parser.addArgument("-a", "--algorithm")
         .metavar("ALGORITHM")
-        .choices("astar", "dfs", "ao")
+        .choices("astar", "dfs", "ao", "portfolio", "auto")
         .dest(Keys.ALGORITHM)
         .setDefault("ao")
         .help("the algorithm with which to find the optimal schedule (default is dfs); options are "
-            + "astar (A* with ELS state space), dfs (DFS branch-and-bound with ELS state space) and "
-            + "ao (DFS B&B with allocation-ordering state space)");
+            + "astar (A* with ELS state space), dfs (DFS branch-and-bound with ELS state space), "
+            + "ao (DFS B&B with allocation-ordering state space), portfolio (all three at once, "
+            + "sharing the best schedule found so far, until the first one finishes; needs -p 3 or "
+            + "more) and auto (chooses one of the first three from features of the INPUT graph, "
+            + "such as its width and critical path)");
     this.parser.addArgument("-p", "--parallel")
         .metavar("N")
         .type(Integer.class)
@@ -77,6 +82,39 @@ public class CommandLineParser {
         .action(Arguments.storeTrue())
         .dest(Keys.WRITE_TO_STD_OUT)
         .help("write the schedule to stdout instead of a file; nullifies the effect of -o");
+    this.parser.addArgument("-i", "--improve")
+        .action(Arguments.storeTrue())
+        .dest(Keys.IMPROVE_INCUMBENT)
+        .help("run a local search alongside the algorithm on an extra thread, which improves the "
+            + "best schedule found so far so that more of the search can be pruned");
+    this.parser.addArgument("-e", "--epsilon")
+        .metavar("E")
+        .type(Double.class)
+        .dest(Keys.EPSILON)
+        .setDefault(0.0)
+        .help("find a schedule whose makespan is within a factor of (1 + E) of optimal, rather "
+            + "than an optimal one, which can be much faster (default is 0); has no effect on "
+            + "astar; E must be a finite number that isn't negative");
+    this.parser.addArgument("-t", "--time-limit")
+        .metavar("SECONDS")
+        .type(Double.class)
+        .dest(Keys.TIME_LIMIT)
+        .help("stop searching after SECONDS and output the best schedule found so far, reporting "
+            + "how far from optimal it could be (default is no time limit)");
+    this.parser.addArgument("--sweep")
+        .metavar("MAX_P")
+        .type(Integer.class)
+        .dest(Keys.SWEEP_MAX_PROCESSOR_COUNT)
+        .help("schedule INPUT on every number of processors from P to MAX_P and write the curve "
+            + "of makespan against the number of processors to stdout as CSV, instead of writing "
+            + "a schedule; each schedule is used as the starting bound for the next number of "
+            + "processors, and any time limit applies to each number of processors separately");
+    this.parser.addArgument("-w", "--warm-start")
+        .metavar("SCHEDULE.dot")
+        .dest(Keys.WARM_START_SCHEDULE)
+        .help("start from a schedule previously output for a version of INPUT (e.g. before some "
+            + "weights changed), which is re-timed with the current weights and used as the best "
+            + "schedule found so far");
   }
 
   /**
@@ -101,6 +139,14 @@ public class CommandLineParser {
       final String algorithm = namespace.getString(Keys.ALGORITHM);
       final boolean visualiseSearch = namespace.getBoolean(Keys.VISUALISE_SEARCH);
       final boolean writeToStdOut = namespace.getBoolean(Keys.WRITE_TO_STD_OUT);
+      final boolean improveIncumbent = namespace.getBoolean(Keys.IMPROVE_INCUMBENT);
+      final double epsilon = namespace.getDouble(Keys.EPSILON);
+      final Double timeLimitSeconds = namespace.getDouble(Keys.TIME_LIMIT);
+      final Duration timeLimit = timeLimitSeconds == null
+          ? null
+          : Duration.ofMillis(Math.round(timeLimitSeconds * 1000));
+      final Integer sweepMaxProcessorCount = namespace.getInt(Keys.SWEEP_MAX_PROCESSOR_COUNT);
+      final String warmStartSchedule = namespace.getString(Keys.WARM_START_SCHEDULE);
 
       // strip the leading and trailing quotes from the inputDotGraph file name
       if (inputDotGraph.startsWith("\"") && inputDotGraph.endsWith("\"")) {
@@ -118,7 +164,12 @@ public class CommandLineParser {
           parallelisationProcessorCount,
           visualiseSearch,
           new File(outputDotGraph),
-          writeToStdOut);
+          writeToStdOut,
+          improveIncumbent,
+          epsilon,
+          timeLimit,
+          sweepMaxProcessorCount,
+          warmStartSchedule == null ? null : new File(warmStartSchedule));
 
       this.validateArguments(arguments);
       return arguments;
@@ -155,6 +206,50 @@ public class CommandLineParser {
               availableProcessors), this.parser);
     }
 
+    if (arguments.algorithm().equalsIgnoreCase("portfolio") && !arguments.visualiseSearch()
+        && arguments.parallelisationProcessorCount() < SchedulerFactory.PORTFOLIO_SCHEDULER_COUNT) {
+      throw new ArgumentParserException(
+          String.format("The portfolio algorithm (-a portfolio) runs %1$d schedulers at once, so "
+                  + "it needs at least %1$d parallel processors (-p N).",
+              SchedulerFactory.PORTFOLIO_SCHEDULER_COUNT), this.parser);
+    }
+
+    // NaN fails every comparison, so it has to be checked for explicitly
+    if (!Double.isFinite(arguments.epsilon()) || arguments.epsilon() < 0) {
+      throw new ArgumentParserException(
+          "The optimality gap (-e E) must be a finite number that isn't negative.", this.parser);
+    }
+
+    if (arguments.timeLimit() != null
+        && (arguments.timeLimit().isNegative() || arguments.timeLimit().isZero())) {
+      throw new ArgumentParserException(
+          "The time limit (-t SECONDS) must be at least a millisecond.", this.parser);
+    }
+
+    if (arguments.sweepMaxProcessorCount() != null) {
+      if (arguments.sweepMaxProcessorCount() < arguments.processorCount()) {
+        throw new ArgumentParserException(
+            "The largest number of processors to sweep to (--sweep MAX_P) must be at least P.",
+            this.parser);
+      }
+      if (arguments.visualiseSearch() || arguments.improveIncumbent()) {
+        throw new ArgumentParserException(
+            "A sweep (--sweep MAX_P) can't be visualised (-v) or improved (-i).", this.parser);
+      }
+    }
+
+    if (arguments.warmStartSchedule() != null) {
+      if (arguments.sweepMaxProcessorCount() != null) {
+        throw new ArgumentParserException(
+            "A sweep (--sweep MAX_P) can't be warm started (-w).", this.parser);
+      }
+      if (!arguments.warmStartSchedule().exists()) {
+        throw new ArgumentParserException(
+            String.format("The warm start schedule file %s does not exist.",
+                arguments.warmStartSchedule().getPath()), this.parser);
+      }
+    }
+
     if (!arguments.inputDotGraph().exists()) {
       throw new ArgumentParserException(
           String.format("The input DOT graph file %s does not exist.",
@@ -171,6 +266,11 @@ public class CommandLineParser {
     private static final String VISUALISE_SEARCH = "visualise";
     private static final String OUTPUT_DOT_GRAPH = "output";
     private static final String WRITE_TO_STD_OUT = "writeToStdOut";
+    private static final String IMPROVE_INCUMBENT = "improveIncumbent";
+    private static final String EPSILON = "epsilon";
+    private static final String TIME_LIMIT = "timeLimit";
+    private static final String SWEEP_MAX_PROCESSOR_COUNT = "sweepMaxProcessorCount";
+    private static final String WARM_START_SCHEDULE = "warmStartSchedule";
 
   }
 
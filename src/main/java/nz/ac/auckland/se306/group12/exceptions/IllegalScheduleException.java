@@ -0,0 +1,13 @@
+package nz.ac.auckland.se306.group12.exceptions;
+
+public class IllegalScheduleException extends RuntimeException {
+
+  public IllegalScheduleException(String message) {
+    super(message);
+  }
+
+  public IllegalScheduleException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,179 @@
+package nz.ac.auckland.se306.group12.factories;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.GraphFeatures;
+
+/**
+ * Chooses the algorithm to schedule a graph with from cheap features of the graph, using a model
+ * which is trained offline by {@code scripts/TrainAlgorithmSelector.py} on the bundled optimal
+ * graphs and stored as a resource in the jar.
+ * <p>
+ * The model is a list of rules, each with a list of conditions on the {@link GraphFeatures} and
+ * an algorithm. The algorithm of the first rule whose conditions all hold is chosen, e.g.
+ *
+ * <pre>ccr&lt;=0.55 width&gt;3.5 dfs</pre>
+ */
+public class AlgorithmSelector {
+
+  private static final String MODEL_RESOURCE = "/algorithm-selection.txt";
+  /**
+   * The algorithm to use if no rule matches, which is the same as the default of {@code -a}.
+   */
+  private static final String DEFAULT_ALGORITHM = "ao";
+  /**
+   * The algorithms that the model can choose between.
+   */
+  private static final Set<String> ALGORITHMS = Set.of("astar", "dfs", "ao");
+
+  private final List<Rule> rules;
+
+  /**
+   * Creates a new {@link AlgorithmSelector} instance, loading the model from the jar.
+   *
+   * @throws IllegalStateException If the model is missing or malformed
+   */
+  public AlgorithmSelector() {
+    try (InputStream model = AlgorithmSelector.class.getResourceAsStream(MODEL_RESOURCE)) {
+      if (model == null) {
+        throw new IllegalStateException("The algorithm selection model is missing.");
+      }
+      this.rules = this.parseRules(
+          new BufferedReader(new InputStreamReader(model, StandardCharsets.UTF_8)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates a new {@link AlgorithmSelector} instance with the given model, rather than the one in
+   * the jar.
+   *
+   * @param model The reader of the model
+   * @throws IOException           If the model couldn't be read
+   * @throws IllegalStateException If the model is malformed
+   */
+  AlgorithmSelector(BufferedReader model) throws IOException {
+    this.rules = this.parseRules(model);
+  }
+
+  /**
+   * Chooses the algorithm to schedule the given graph with.
+   *
+   * @param taskGraph      The graph to be scheduled
+   * @param processorCount The number of processors the graph is being scheduled on
+   * @return The name of the chosen algorithm, as given to {@code -a}
+   */
+  public String selectAlgorithm(Graph taskGraph, int processorCount) {
+    GraphFeatures features = GraphFeatures.of(taskGraph, processorCount);
+    for (Rule rule : this.rules) {
+      if (rule.matches(features)) {
+        return rule.algorithm();
+      }
+    }
+    return DEFAULT_ALGORITHM;
+  }
+
+  /**
+   * Parses the rules of the model, ignoring blank lines and comments starting with {@code #}.
+   *
+   * @param reader The reader of the model
+   * @return The rules in the model, in order
+   * @throws IOException           If the model couldn't be read
+   * @throws IllegalStateException If a rule is malformed or chooses an unknown algorithm
+   */
+  private List<Rule> parseRules(BufferedReader reader) throws IOException {
+    List<Rule> parsedRules = new ArrayList<>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.strip();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      String[] tokens = line.split("\\s+");
+      List<Condition> conditions = new ArrayList<>();
+      for (int i = 0; i < tokens.length - 1; i++) {
+        conditions.add(this.parseCondition(tokens[i]));
+      }
+      String algorithm = tokens[tokens.length - 1];
+      if (!ALGORITHMS.contains(algorithm)) {
+        throw new IllegalStateException("Invalid algorithm in the algorithm selection model: "
+            + algorithm);
+      }
+      parsedRules.add(new Rule(conditions, algorithm));
+    }
+    return parsedRules;
+  }
+
+  /**
+   * Parses a condition of the form {@code feature<=threshold} or {@code feature>threshold}.
+   *
+   * @param token The condition to parse
+   * @return The parsed condition
+   * @throws IllegalStateException If the condition is malformed or uses an unknown feature
+   */
+  private Condition parseCondition(String token) {
+    int atMostIndex = token.indexOf("<=");
+    int greaterThanIndex = token.indexOf('>');
+    Condition condition;
+    try {
+      if (atMostIndex != -1) {
+        condition = new Condition(token.substring(0, atMostIndex), true,
+            Double.parseDouble(token.substring(atMostIndex + 2)));
+      } else if (greaterThanIndex != -1) {
+        condition = new Condition(token.substring(0, greaterThanIndex), false,
+            Double.parseDouble(token.substring(greaterThanIndex + 1)));
+      } else {
+        throw new IllegalStateException(
+            "Invalid condition in the algorithm selection model: " + token);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("Invalid threshold in the algorithm selection model: "
+          + token, e);
+    }
+
+    // Check the feature now, rather than failing the first time the rule is checked
+    if (!GraphFeatures.FEATURE_NAMES.contains(condition.feature())) {
+      throw new IllegalStateException("Unknown feature in the algorithm selection model: "
+          + token);
+    }
+    return condition;
+  }
+
+  /**
+   * @param conditions The conditions which must all hold for the rule to match
+   * @param algorithm  The algorithm to choose if the rule matches
+   */
+  private record Rule(List<Condition> conditions, String algorithm) {
+
+    private boolean matches(GraphFeatures features) {
+      return this.conditions.stream().allMatch(condition -> condition.holds(features));
+    }
+
+  }
+
+  /**
+   * @param feature   The name of the feature to compare
+   * @param isAtMost  {@code true} if the feature must be at most the threshold, {@code false} if
+   *                  it must be greater than it
+   * @param threshold The threshold to compare the feature to
+   */
+  private record Condition(String feature, boolean isAtMost, double threshold) {
+
+    private boolean holds(GraphFeatures features) {
+      double value = features.get(this.feature);
+      return this.isAtMost ? value <= this.threshold : value > this.threshold;
+    }
+
+  }
+
+}
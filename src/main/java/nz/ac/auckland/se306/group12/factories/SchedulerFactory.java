@@ -1,38 +1,65 @@
 package nz.ac.auckland.se306.group12.factories;
 
+import java.util.List;
 import nz.ac.auckland.se306.group12.models.CommandLineArguments;
+import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.scheduler.AStarScheduler;
 import nz.ac.auckland.se306.group12.scheduler.DfsAOScheduler;
 import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
 import nz.ac.auckland.se306.group12.scheduler.ParallelDfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.PortfolioScheduler;
 import nz.ac.auckland.se306.group12.scheduler.Scheduler;
 
 public class SchedulerFactory {
 
+  /**
+   * The number of schedulers the portfolio races, each of which needs at least one thread. This is
+   * the smallest parallelisation budget the portfolio can be run with.
+   */
+  public static final int PORTFOLIO_SCHEDULER_COUNT = 3;
+
   /**
    * Returns a scheduler depending on if the user wants to visualise the search or not since we do
    * not properly support visualising A* or AO
    *
    * @param arguments The parsed commandline arguments
+   * @param taskGraph The graph to be scheduled, which is used to choose the algorithm if it's
+   *                  {@code auto}
    * @return A scheduler depending on if the user wants to visualise the search or not
    */
-  public Scheduler getScheduler(CommandLineArguments arguments) {
+  public Scheduler getScheduler(CommandLineArguments arguments, Graph taskGraph) {
     // We only support visualization using DFS
     if (arguments.visualiseSearch()) {
-      return new DfsScheduler(arguments.parallelisationProcessorCount());
+      return new DfsScheduler(arguments.parallelisationProcessorCount(), arguments.epsilon());
     }
 
-    switch (arguments.algorithm().toLowerCase()) {
+    String algorithm = arguments.algorithm().toLowerCase();
+    if (algorithm.equals("auto")) {
+      algorithm = new AlgorithmSelector().selectAlgorithm(taskGraph, arguments.processorCount());
+    }
+
+    switch (algorithm) {
       case "astar" -> {
         return new AStarScheduler();
       }
       case "dfs" -> {
-        return new DfsScheduler(arguments.parallelisationProcessorCount());
+        return new DfsScheduler(arguments.parallelisationProcessorCount(), arguments.epsilon());
       }
       case "ao" -> {
         return arguments.parallelisationProcessorCount() > 1
-            ? new ParallelDfsAOScheduler(arguments.parallelisationProcessorCount())
-            : new DfsAOScheduler();
+            ? new ParallelDfsAOScheduler(arguments.parallelisationProcessorCount(),
+            arguments.epsilon())
+            : new DfsAOScheduler(arguments.epsilon());
+      }
+      case "portfolio" -> {
+        // A* and AO get a thread each and DFS gets the rest of the parallelisation budget, which
+        // the command line parser makes sure leaves DFS at least one thread
+        int dfsThreadCount =
+            arguments.parallelisationProcessorCount() - (PORTFOLIO_SCHEDULER_COUNT - 1);
+        return new PortfolioScheduler(List.of(
+            new DfsScheduler(dfsThreadCount, arguments.epsilon()),
+            new AStarScheduler(),
+            new DfsAOScheduler(arguments.epsilon())));
       }
       default -> throw new IllegalArgumentException(
           "Invalid algorithm. " + arguments.algorithm() + " is not a valid algorithm.");
@@ -6,6 +6,9 @@ import com.paypal.digraph.parser.GraphParser;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import nz.ac.auckland.se306.group12.exceptions.IllegalScheduleException;
 import nz.ac.auckland.se306.group12.models.CommandLineArguments;
 import nz.ac.auckland.se306.group12.models.Edge;
 import nz.ac.auckland.se306.group12.models.Graph;
@@ -40,9 +43,80 @@ public class DotGraphIO {
       graph.addEdge(graphEdge.getNode1().getId(), graphEdge.getNode2().getId(), weight);
     }
 
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
     return graph;
   }
 
+  /**
+   * Reads the placement of each task from a schedule previously written by
+   * {@link #toDotString(String, Schedule, Graph)}, so that it can be re-timed against the current
+   * weights of the graph. Only the start time and processor of each task are read, as the weights
+   * may have changed since. Tasks that are no longer in the graph are ignored, but every task in
+   * the graph must have been placed.
+   *
+   * @param previousSchedule The DOT file of the previous schedule
+   * @param taskGraph        The graph that is being scheduled now
+   * @return The previous placement of each task in the graph, by index. The end times use the
+   * current weights, but the start times don't take them into account.
+   * @throws IOException              If an error occurs while reading the file
+   * @throws IllegalScheduleException If the file isn't a valid DOT graph, or a task in the graph
+   *                                  wasn't placed by the schedule or has an invalid placement
+   */
+  public ScheduledTask[] readDotSchedule(File previousSchedule, Graph taskGraph)
+      throws IOException {
+    Map<String, GraphNode> graphNodes;
+    try (InputStream inputStream = new FileInputStream(previousSchedule)) {
+      graphNodes = new GraphParser(inputStream).getNodes();
+    } catch (RuntimeException e) {
+      // The parser only throws unchecked exceptions when the file can't be parsed
+      throw new IllegalScheduleException(String.format(
+          "The previous schedule %s isn't a valid DOT graph.", previousSchedule.getName()), e);
+    }
+    ScheduledTask[] placements = new ScheduledTask[taskGraph.taskCount()];
+
+    for (Task task : taskGraph.getTasks()) {
+      GraphNode graphNode = graphNodes.get(task.getLabel());
+      Map<String, Object> attributes = graphNode == null ? Map.of() : graphNode.getAttributes();
+      if (!attributes.containsKey("Start") || !attributes.containsKey("Processor")) {
+        throw new IllegalScheduleException(String.format(
+            "The task %s isn't placed by the previous schedule.", task.getLabel()));
+      }
+
+      int startTime = this.parsePlacement(attributes, "Start", task);
+      // Processor indexing is 1-based
+      int processorIndex = this.parsePlacement(attributes, "Processor", task) - 1;
+      if (startTime < 0 || processorIndex < 0) {
+        throw new IllegalScheduleException(String.format(
+            "The task %s has an invalid placement in the previous schedule.", task.getLabel()));
+      }
+      placements[task.getIndex()] =
+          new ScheduledTask(startTime, startTime + task.getWeight(), processorIndex);
+    }
+
+    return placements;
+  }
+
+  /**
+   * Parses an integer attribute of a task's placement in a previous schedule.
+   *
+   * @param attributes The attributes of the task's node in the previous schedule
+   * @param attribute  The name of the attribute to parse
+   * @param task       The task that was placed
+   * @return The value of the attribute
+   * @throws IllegalScheduleException If the attribute isn't an integer
+   */
+  private int parsePlacement(Map<String, Object> attributes, String attribute, Task task) {
+    try {
+      return Integer.parseInt(attributes.get(attribute).toString());
+    } catch (NumberFormatException e) {
+      throw new IllegalScheduleException(String.format(
+          "The task %s has an invalid %s in the previous schedule.", task.getLabel(), attribute),
+          e);
+    }
+  }
+
   /**
    * Serialises the given scheduled tasks into a dot graph and either writes it to the given output
    * file specified in the {@link CommandLineArguments} or to stdout if the <code>-s</code> flag was
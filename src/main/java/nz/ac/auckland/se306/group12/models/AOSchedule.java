@@ -1,12 +1,11 @@
 package nz.ac.auckland.se306.group12.models;
 
-import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.Set;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import nz.ac.auckland.se306.group12.models.datastructures.BitSet;
+import nz.ac.auckland.se306.group12.models.datastructures.IntStack;
 
 /**
  * AOSchedule
@@ -15,7 +14,12 @@ import nz.ac.auckland.se306.group12.models.datastructures.BitSet;
 @RequiredArgsConstructor
 public class AOSchedule {
 
-  private final ScheduledTask[] scheduledTasks;
+  /**
+   * The start time of each task, or -1 if it hasn't been scheduled yet. The processor of a task is
+   * given by the allocation and its end time is its start time plus its weight, so there's no need
+   * to create a {@link ScheduledTask} for every task in every state.
+   */
+  private final int[] startTimes;
   private final int[] processorLastTaskIndices;
   private final int scheduledTaskCount;
   private final int latestEndTime;
@@ -31,8 +35,9 @@ public class AOSchedule {
   private final int previousTaskIndex;
 
   public AOSchedule(Allocation allocation) {
-    this.scheduledTasks = new ScheduledTask[allocation.getTaskGraph().taskCount()];
-    this.processorLastTaskIndices = new int[allocation.getProcessors().length];
+    this.startTimes = new int[allocation.getTaskGraph().taskCount()];
+    Arrays.fill(this.startTimes, -1);
+    this.processorLastTaskIndices = new int[allocation.getProcessorCount()];
     Arrays.fill(this.processorLastTaskIndices, -1);
     this.scheduledTaskCount = 0;
     this.latestEndTime = 0;
@@ -50,17 +55,24 @@ public class AOSchedule {
   }
 
   /**
-   * Gets the set of tasks that are ready to be locally scheduled on the processor
+   * Gets the set of tasks that are ready to be locally scheduled on the processor. Only the tasks
+   * in the processor's allocation bitmask are checked, rather than every task in the graph.
    *
    * @param processorIndex Index of the processor to get the ready tasks for
    * @return Set of ready tasks
    */
   private Set<Task> getProcessorReadyTasks(int processorIndex) {
     Set<Task> newReadyTasks = new BitSet<>(this.taskGraph);
-    for (Task task : this.taskGraph.getTasks()) {
-      // check if the task being checked is the current local processor
-      if (this.getAllocatedProcessorOf(task) == processorIndex) {
-        if (this.isTaskReady(this.scheduledTasks, task)) {
+    if (processorIndex >= this.allocation.getProcessorCount()) {
+      return newReadyTasks;
+    }
+
+    long[] processorTasks = this.allocation.getProcessors()[processorIndex];
+    for (int word = 0; word < processorTasks.length; word++) {
+      for (long remaining = processorTasks[word]; remaining != 0; remaining &= remaining - 1) {
+        int taskIndex = word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+        Task task = this.taskGraph.getTask(taskIndex);
+        if (this.isTaskReady(this.startTimes, task)) {
           newReadyTasks.add(task);
         }
       }
@@ -68,32 +80,21 @@ public class AOSchedule {
     return newReadyTasks;
   }
 
-  /**
-   * This method determines the {@link ScheduledTask} for a given task.
-   *
-   * @param task Task to be scheduled
-   * @return The created {@link ScheduledTask} representation of the task
-   */
-  public ScheduledTask extendWithTask(Task task) {
-    int startTime = this.getLatestStartTimeOf(task);
-    int endTime = startTime + task.getWeight();
-    return new ScheduledTask(startTime, endTime, this.localIndex);
-  }
-
   /**
    * Returns a new schedule with the given task added to the end of the schedule
    *
-   * @param scheduledTask The scheduledTask representation of the task to add
-   * @param task          The task to add
-   * @return A new schedule with the given task added to the end of the schedule
+   * @param task             The task to add
+   * @param propagationStack A scratch stack to use while propagating start times. It's cleared
+   *                         before use, so it can be shared by every extension a worker makes
+   * @return A new schedule with the given task added to the end of the schedule, or {@code null}
+   * if propagation failed
    */
-  public AOSchedule extendWithTask(ScheduledTask scheduledTask, Task task) {
-    ScheduledTask[] newScheduledTasks = Arrays.copyOf(this.scheduledTasks,
-        this.scheduledTasks.length);
+  public AOSchedule extendWithTask(Task task, IntStack propagationStack) {
+    int[] newStartTimes = Arrays.copyOf(this.startTimes, this.startTimes.length);
     int[] newProcessorLastTaskIndices = Arrays.copyOf(this.processorLastTaskIndices,
         this.processorLastTaskIndices.length);
 
-    newScheduledTasks[task.getIndex()] = scheduledTask;
+    newStartTimes[task.getIndex()] = this.getLatestStartTimeOf(task);
     int newLocalOrderedCount = this.localOrderedCount + 1;
     int newLocalOrderedWeight = this.localOrderedWeight + task.getWeight();
     int newLocalIndex = this.localIndex;
@@ -104,29 +105,29 @@ public class AOSchedule {
       newNextTasks[this.previousTaskIndex] = task.getIndex();
     }
     int newPreviousTaskIndex = task.getIndex();
-    if (!this.propagate(newScheduledTasks, task, newNextTasks)) {
+    if (!this.propagate(newStartTimes, task, newNextTasks, propagationStack)) {
       return null;
     }
 
-    newProcessorLastTaskIndices[scheduledTask.getProcessorIndex()] = task.getIndex();
+    newProcessorLastTaskIndices[this.localIndex] = task.getIndex();
 
     Set<Task> newReadyTasks;
     // if all tasks on current processor have been allocated move to next processor
-    if (newLocalOrderedCount == this.allocation.getProcessors()[this.localIndex].size()) {
+    if (newLocalOrderedCount == this.allocation.getProcessorTaskCount(this.localIndex)) {
       newLocalOrderedCount = 0;
       newLocalOrderedWeight = 0;
       newLocalIndex++;
       newReadyTasks = this.getProcessorReadyTasks(newLocalIndex);
       newPreviousTaskIndex = -1;
     } else {
-      newReadyTasks = this.getNewReadyTasks(task, newScheduledTasks);
+      newReadyTasks = this.getNewReadyTasks(task, newStartTimes);
     }
 
     return new AOSchedule(
-        newScheduledTasks,
+        newStartTimes,
         newProcessorLastTaskIndices,
         this.scheduledTaskCount + 1,
-        this.getNewLatestEndTime(newProcessorLastTaskIndices, newScheduledTasks),
+        this.getNewLatestEndTime(newProcessorLastTaskIndices, newStartTimes),
         this.allocation,
         newLocalIndex,
         newLocalOrderedCount,
@@ -144,95 +145,73 @@ public class AOSchedule {
    * loop. This is detected by determining it a task has been propagated past the total weight of
    * the task graph.
    *
-   * @param newScheduledTasks List of scheduled tasks representing the schedule at the next state
-   * @param task              Task to start propagation from
+   * @param newStartTimes    The start times of the tasks at the next state, which are updated in
+   *                         place
+   * @param task             Task to start propagation from
+   * @param newNextTasks     The next task on the same processor of each task at the next state
+   * @param propagationStack The scratch stack of task indices still to propagate from
    * @return {@code true} If the propagation completed successfully, {@code false} otherwise
    */
-  private boolean propagate(ScheduledTask[] newScheduledTasks, Task task, int[] newNextTasks) {
-    Deque<Task> stack = new ArrayDeque<>();
-    stack.push(task);
-    while (!stack.isEmpty()) {
-      Task parentTask = stack.pop();
-      ScheduledTask parentScheduledTask = newScheduledTasks[parentTask.getIndex()];
-      int parentEndTime = parentScheduledTask.getEndTime();
-      if (parentScheduledTask.getEndTime() > this.taskGraph.getTotalTaskWeights()) {
+  private boolean propagate(
+      int[] newStartTimes,
+      Task task,
+      int[] newNextTasks,
+      IntStack propagationStack
+  ) {
+    propagationStack.clear();
+    propagationStack.push(task.getIndex());
+    while (!propagationStack.isEmpty()) {
+      int parentIndex = propagationStack.pop();
+      Task parentTask = this.taskGraph.getTask(parentIndex);
+      int parentEndTime = newStartTimes[parentIndex] + parentTask.getWeight();
+      // don't continue if there is an invalid loop in the schedule
+      if (parentEndTime > this.taskGraph.getTotalTaskWeights()) {
         return false;
       }
+      int parentProcessorIndex = this.getAllocatedProcessorOf(parentTask);
       for (Edge outEdge : parentTask.getOutgoingEdges()) {
-        // don't continue if there is an invalid loop in the schedule
         Task childTask = outEdge.getDestination();
-        ScheduledTask childScheduledTask = newScheduledTasks[childTask.getIndex()];
+        int childIndex = childTask.getIndex();
         // don't propagate if the child task is not scheduled yet
-        if (childScheduledTask == null) {
+        if (newStartTimes[childIndex] == -1) {
           continue;
         }
-        int childStartTime = parentScheduledTask.getProcessorIndex() == childScheduledTask
-            .getProcessorIndex()
+        int childStartTime = parentProcessorIndex == this.getAllocatedProcessorOf(childTask)
             ? parentEndTime
             : parentEndTime + outEdge.getWeight();
-        ScheduledTask newScheduledTask = this.getUpdatedScheduledTask(childTask,
-            childScheduledTask, childStartTime);
-        if (newScheduledTask != null) {
-          newScheduledTasks[childTask.getIndex()] = newScheduledTask;
-          stack.push(childTask);
+        if (newStartTimes[childIndex] < childStartTime) {
+          newStartTimes[childIndex] = childStartTime;
+          propagationStack.push(childIndex);
         }
       }
       // propagate the descendant (this will be on the same processor)
-      int descendantIndex = newNextTasks[parentTask.getIndex()];
+      int descendantIndex = newNextTasks[parentIndex];
       // don't run this if the parent task does not have a descendant
-      if (descendantIndex != -1) {
-        Task descendantTask = this.taskGraph.getTask(descendantIndex);
-        ScheduledTask descendantScheduledTask = newScheduledTasks[descendantIndex];
-        ScheduledTask newScheduledTask = this.getUpdatedScheduledTask(descendantTask,
-            descendantScheduledTask, parentEndTime);
-        if (newScheduledTask != null) {
-          newScheduledTasks[descendantIndex] = newScheduledTask;
-          stack.push(descendantTask);
-        }
+      if (descendantIndex != -1 && newStartTimes[descendantIndex] < parentEndTime) {
+        newStartTimes[descendantIndex] = parentEndTime;
+        propagationStack.push(descendantIndex);
       }
     }
     return true;
   }
 
-  /**
-   * Updates the scheduled task if the new start time is greater than the current start time
-   *
-   * @param task            Task to be updated
-   * @param scheduledTask   Scheduled task representation of the task to be updated
-   * @param newMinStartTime New start time of the task
-   * @return A new {@link ScheduledTask} if the task was updated, otherwise {@code null}
-   */
-  private ScheduledTask getUpdatedScheduledTask(
-      Task task,
-      ScheduledTask scheduledTask,
-      int newMinStartTime
-  ) {
-    // if the child task needs updating then update
-    if (scheduledTask.getStartTime() < newMinStartTime) {
-      return new ScheduledTask(newMinStartTime, newMinStartTime + task.getWeight(),
-          scheduledTask.getProcessorIndex());
-    }
-    return null;
-  }
-
   /**
    * This method checks if a task is ready to be scheduled locally on the processor. This occurs
    * when all the task's dependences that are allocated on the same processor have already been
    * scheduled.
    *
-   * @param newScheduledTasks List of scheduled tasks representing the schedule at the next state
-   * @param child             Child task to be checked if ready
+   * @param newStartTimes The start times of the tasks at the next state
+   * @param child         Child task to be checked if ready
    * @return {@code true} if the task is ready to be scheduled, {@code false} otherwise
    */
-  private boolean isTaskReady(ScheduledTask[] newScheduledTasks, Task child) {
+  private boolean isTaskReady(int[] newStartTimes, Task child) {
     int processorNumber = this.getAllocatedProcessorOf(child);
     for (Edge incomingEdge : child.getIncomingEdges()) {
       Task parentTask = incomingEdge.getSource();
-      int parentIndex = parentTask.getIndex();
-      ScheduledTask parent = newScheduledTasks[parentIndex];
 
       // return not ready if the parent isn't scheduled and is allocated on the same processor
-      if (parent == null && this.getAllocatedProcessorOf(parentTask) == processorNumber) {
+      if (newStartTimes[parentTask.getIndex()] == -1
+          && this.getAllocatedProcessorOf(parentTask) == processorNumber) {
         return false;
       }
     }
@@ -255,14 +234,14 @@ public class AOSchedule {
    * number of the end times to change, and so we cannot just check the processor of the new task.
    *
    * @param newProcessorLastTasks The index on the last task on each processor
-   * @param newScheduledTasks     The scheduled tasks
+   * @param newStartTimes         The start times of the tasks
    * @return The new latest end time of the schedule
    */
-  private int getNewLatestEndTime(int[] newProcessorLastTasks, ScheduledTask[] newScheduledTasks) {
+  private int getNewLatestEndTime(int[] newProcessorLastTasks, int[] newStartTimes) {
     int newLatestEndTime = 0;
     for (int processorIndex = 0; processorIndex < newProcessorLastTasks.length; processorIndex++) {
       int processorEndTime = this.getLatestEndTimeOf(processorIndex, newProcessorLastTasks,
-          newScheduledTasks);
+          newStartTimes);
       if (processorEndTime > newLatestEndTime) {
         newLatestEndTime = processorEndTime;
       }
@@ -283,19 +262,19 @@ public class AOSchedule {
     // Loop through all parent tasks
     for (Edge incomingEdge : task.getIncomingEdges()) {
       Task parentTask = incomingEdge.getSource();
-      ScheduledTask parentScheduledTask = this.getScheduledTask(parentTask);
+      int parentStartTime = this.startTimes[parentTask.getIndex()];
 
       // Skip if parent task is not scheduled
-      if (parentScheduledTask == null) {
+      if (parentStartTime == -1) {
         continue;
       }
 
       // Skip if parent task is scheduled on the same processor as processor end time is always later
-      if (parentScheduledTask.getProcessorIndex() == taskProcessorIndex) {
+      if (this.getAllocatedProcessorOf(parentTask) == taskProcessorIndex) {
         continue;
       }
 
-      int newLatestStartTime = parentScheduledTask.getEndTime() + incomingEdge.getWeight();
+      int newLatestStartTime = parentStartTime + parentTask.getWeight() + incomingEdge.getWeight();
 
       // Update latest start time if new latest start time is greater
       if (newLatestStartTime > latestStartTime) {
@@ -311,17 +290,17 @@ public class AOSchedule {
    * being scheduled. A locally ready task is one where all of its dependences that have been
    * allocated to the same processor have already been scheduled.
    *
-   * @param task              Current task being scheduled
-   * @param newScheduledTasks List of scheduled tasks representing the schedule at the next state
+   * @param task          Current task being scheduled
+   * @param newStartTimes The start times of the tasks at the next state
    * @return Set of locally ready tasks
    */
-  private Set<Task> getNewReadyTasks(Task task, ScheduledTask[] newScheduledTasks) {
+  private Set<Task> getNewReadyTasks(Task task, int[] newStartTimes) {
     Set<Task> newReadyTasks = new BitSet<>(this.readyTasks);
     newReadyTasks.remove(task);
     for (Edge outEdge : task.getOutgoingEdges()) {
       Task child = outEdge.getDestination();
       if (this.getAllocatedProcessorOf(child) == this.getAllocatedProcessorOf(task)) {
-        if (this.isTaskReady(newScheduledTasks, child)) {
+        if (this.isTaskReady(newStartTimes, child)) {
           newReadyTasks.add(child);
         }
       }
@@ -337,7 +316,15 @@ public class AOSchedule {
    * @return Schedule representation of the AOSchedule
    */
   public Schedule asSchedule() {
-    return new Schedule(this.scheduledTasks,
+    ScheduledTask[] scheduledTasks = new ScheduledTask[this.startTimes.length];
+    for (Task task : this.taskGraph.getTasks()) {
+      int startTime = this.startTimes[task.getIndex()];
+      if (startTime != -1) {
+        scheduledTasks[task.getIndex()] = new ScheduledTask(startTime,
+            startTime + task.getWeight(), this.getAllocatedProcessorOf(task));
+      }
+    }
+    return new Schedule(scheduledTasks,
         new int[this.processorLastTaskIndices.length],
         this.getLatestEndTime(),
         this.scheduledTaskCount,
@@ -346,6 +333,50 @@ public class AOSchedule {
         0, 0);
   }
 
+  /**
+   * Checks if any task can no longer start by its ALAP start time in this schedule, in which case
+   * no ordering that completes this schedule can beat the incumbent. Propagation only ever moves
+   * scheduled tasks later, so their current start times are lower bounds. An unscheduled task
+   * can't start before the data from its scheduled parents arrives on its allocated processor, nor
+   * before the tasks already ordered on that processor finish.
+   *
+   * @param alapStartTimes The ALAP start time of each task, or {@code null} if there's no incumbent
+   * @return {@code true} if a task can't start by its ALAP start time, {@code false} otherwise
+   * @see Graph#getAlapStartTimes(int)
+   */
+  public boolean isPastAlapStartTimes(int[] alapStartTimes) {
+    if (alapStartTimes == null) {
+      return false;
+    }
+
+    for (Task task : this.taskGraph.getTasks()) {
+      int taskIndex = task.getIndex();
+      int earliestStartTime = this.startTimes[taskIndex];
+      if (earliestStartTime == -1) {
+        int processorIndex = this.getAllocatedProcessorOf(task);
+        earliestStartTime = processorIndex == this.localIndex
+            ? this.getLatestEndTimeOf(processorIndex)
+            : 0;
+        for (Edge incomingEdge : task.getIncomingEdges()) {
+          Task parentTask = incomingEdge.getSource();
+          int parentStartTime = this.startTimes[parentTask.getIndex()];
+          if (parentStartTime != -1) {
+            int parentEndTime = parentStartTime + parentTask.getWeight();
+            int dataReadyTime = this.getAllocatedProcessorOf(parentTask) == processorIndex
+                ? parentEndTime
+                : parentEndTime + incomingEdge.getWeight();
+            earliestStartTime = Math.max(earliestStartTime, dataReadyTime);
+          }
+        }
+      }
+
+      if (earliestStartTime > alapStartTimes[taskIndex]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Gets the latest end time of a given processor
    *
@@ -354,38 +385,28 @@ public class AOSchedule {
    */
   public int getLatestEndTimeOf(int processorIndex) {
     return this.getLatestEndTimeOf(processorIndex, this.processorLastTaskIndices,
-        this.scheduledTasks);
+        this.startTimes);
   }
 
   /**
-   * Gets the latest end time of a given processor from a given set of scheduled tasks and the last
-   * task indices on each processor.
+   * Gets the latest end time of a given processor from the given start times and the last task
+   * indices on each processor.
    *
    * @param processorIndex           The index of the processor to get the latest end time of
    * @param processorLastTaskIndices The index on the last task on each processor
-   * @param scheduledTasks           The scheduled tasks
+   * @param startTimes               The start times of the tasks
    * @return The latest end time of the processor
    */
   private int getLatestEndTimeOf(
       int processorIndex,
       int[] processorLastTaskIndices,
-      ScheduledTask[] scheduledTasks
+      int[] startTimes
   ) {
     int lastTaskIndex = processorLastTaskIndices[processorIndex];
     if (lastTaskIndex == -1) {
       return 0;
     }
-    return scheduledTasks[lastTaskIndex].getEndTime();
-  }
-
-  /**
-   * Gets the scheduled task representation of a task
-   *
-   * @param task Task to get the scheduled task representation of
-   * @return Scheduled task representation of the task
-   */
-  private ScheduledTask getScheduledTask(Task task) {
-    return this.scheduledTasks[task.getIndex()];
+    return startTimes[lastTaskIndex] + this.taskGraph.getTask(lastTaskIndex).getWeight();
   }
 
   public int getEstimatedMakespan() {
@@ -401,25 +422,4 @@ public class AOSchedule {
     return this.getLatestEndTimeOf(this.localIndex) + remainingWeight;
   }
 
-  /**
-   * This method returns the bottom level estimate of the makespan of this scheduled task. This
-   * estimate is determined by the start time and the bottom level of the task. This will always be
-   * an underestimate because it doesn't factor in the transfer time between processors.
-   *
-   * @param scheduledTask The {@link ScheduledTask} to get the bottom level estimate for
-   * @param task          The corresponding {@link Task} for the scheduled task
-   * @return The bottom level estimate of this scheduled task
-   * @see <a href="https://citeseerx.ist.psu.edu/viewdoc/download?doi=10.1.1.329.9084">Sinnen,
-   *      Kozlov & Shahul: Optimal Scheduling of Task Graphs on Parallel Systems</a>, Section 3.1
-   */
-  private int estimateBottomLevelMakespan() {
-    return Arrays.stream(this.scheduledTasks).mapToInt((scheduledTask) -> {
-      if (scheduledTask == null) {
-        return 0;
-      }
-      Task task = this.taskGraph.getTask(scheduledTask.getProcessorIndex());
-      return scheduledTask.getEndTime() + task.getBottomLevel();
-    }).max().orElse(0);
-  }
-
 }
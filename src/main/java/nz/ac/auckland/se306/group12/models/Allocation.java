@@ -1,29 +1,57 @@
 package nz.ac.auckland.se306.group12.models;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Queue;
-import java.util.Set;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import nz.ac.auckland.se306.group12.models.datastructures.BitSet;
+import nz.ac.auckland.se306.group12.scheduler.TopologicalSorter;
 
 /*
  * An allocation represents a state in a partition of tasks allocated on a processor
+ *
+ * The tasks on each processor are stored as a bitmask, split into as many 64-bit words as the graph
+ * needs. The allocation heuristic is maintained incrementally as tasks are allocated, so that
+ * extending an allocation only needs to recompute the bound of the one processor that changed.
+ *
+ * Tasks are allocated in a topological order, so all the parents of a task are allocated before
+ * it. This means the communication costs into a task are known as soon as it's allocated.
  */
 @RequiredArgsConstructor
 @Getter
 public class Allocation {
 
-  private final Set<Task>[] processors;
+  /**
+   * A bitmask of the indices of the tasks allocated to each processor. Task i is bit (i % 64) of
+   * word (i / 64). Allocations share the bitmasks of the processors they don't change.
+   */
+  private final long[][] processors;
   private final int[] processorWeights;
 
   /**
    * A lookup table of the index each task is allocated to
    */
   private final int[] taskProcessorAllocation;
+  /**
+   * The top level of each allocated task, including the communication costs of the edges on the
+   * path where the source and destination tasks are on different processors. As the allocation of
+   * every parent is known, this is the longest such path to the task and a lower bound on its start
+   * time.
+   */
+  private final int[] communicationTopLevels;
+  /**
+   * The order the tasks are allocated in, which is shared by every allocation for the same graph
+   */
+  private final List<Task> allocationOrder;
 
   private final int allocationCount;
-  private final int maxWeight;
+  /**
+   * The number of processors with at least one task allocated to them. These are always the
+   * processors with the lowest indices.
+   */
+  private final int usedProcessorCount;
+  private final int allocationHeuristic;
   private final Graph taskGraph;
 
   /**
@@ -33,156 +61,241 @@ public class Allocation {
    * @param processorCount The number of processors to create the allocation with
    */
   public Allocation(Graph taskGraph, int processorCount) {
-    this.processors = new BitSet[processorCount];
-    this.allocationCount = 0;
+    int wordCount = (taskGraph.taskCount() + Long.SIZE - 1) / Long.SIZE;
+    this.processors = new long[processorCount][wordCount];
     this.processorWeights = new int[processorCount];
-    this.maxWeight = 0;
-    this.taskGraph = taskGraph;
     this.taskProcessorAllocation = new int[taskGraph.taskCount()];
+    this.communicationTopLevels = new int[taskGraph.taskCount()];
+    // Tasks with the same parents are allocated in index order, which the equivalent task pruning
+    // in extendAllocation relies on
+    this.allocationOrder = new TopologicalSorter().getLowestIndexFirstTopologicalOrder(taskGraph);
+    this.allocationCount = 0;
+    this.usedProcessorCount = 0;
+    this.allocationHeuristic = 0;
+    this.taskGraph = taskGraph;
   }
 
   /**
-   * Pushes all the child allocations that can be made from this allocation onto the stack.
+   * Pushes all the child allocations that can be made from this allocation onto the stack. As the
+   * stack is searched last in first out, the most promising children are pushed last so that
+   * they're explored first: those with the lowest allocation heuristic, and then the one that
+   * follows the guide, if there is one. This finds a good incumbent early, which prunes the rest of
+   * the allocation tree much harder.
    *
-   * @param queue The queue to add the child allocations onto
+   * @param queue           The queue to add the child allocations onto
+   * @param guideProcessors The processor to prefer for each task, or {@code null} if there is no
+   *                        guide
+   * @see #getGuideProcessors(Schedule)
    */
-  public void extendAllocation(Queue<Allocation> queue) {
-    Task newTask = this.taskGraph.getTask(this.allocationCount);
-    // boolean to handle exit early if creating a new processor
-    boolean complete = true;
-    // Loop through each processor to allocate the task to it
-    for (int i = 0; i < this.processors.length && complete; i++) {
-      Set<Task>[] newProcessors = this.deepCopyProcessors();
-      int[] newProcessorWeights = Arrays.copyOf(this.processorWeights,
-          this.processorWeights.length);
-      int[] newTaskProcessorAllocation = Arrays.copyOf(this.taskProcessorAllocation,
-          this.taskProcessorAllocation.length);
-
-      newProcessorWeights[i] += newTask.getWeight();
-      newTaskProcessorAllocation[newTask.getIndex()] = i;
-
-      // If processor is null, create a new one and assign the task to it 
-      if (this.processors[i] == null) {
-        newProcessors[i] = new BitSet<>(this.taskGraph);
-        newProcessors[i].add(newTask);
-        complete = false;
-      } else {
-        newProcessors[i].add(newTask);
+  public void extendAllocation(Queue<Allocation> queue, int[] guideProcessors) {
+    Task newTask = this.allocationOrder.get(this.allocationCount);
+    // Equivalent tasks can be swapped without changing the schedule, so only allow the tasks in an
+    // equivalence class to be allocated to non-decreasing processor indices
+    Task equivalentPredecessor = newTask.getEquivalentPredecessor();
+    int firstProcessor = equivalentPredecessor == null
+        ? 0
+        : this.taskProcessorAllocation[equivalentPredecessor.getIndex()];
+    // Only allow the first empty processor, as the empty processors are interchangeable
+    int lastProcessor = Math.min(this.usedProcessorCount, this.processors.length - 1);
+
+    Allocation[] childAllocations = new Allocation[lastProcessor - firstProcessor + 1];
+    for (int i = firstProcessor; i <= lastProcessor; i++) {
+      childAllocations[i - firstProcessor] = this.allocateTask(newTask, i);
+    }
+
+    int newTaskIndex = newTask.getIndex();
+    int guideProcessor = guideProcessors == null ? -1 : guideProcessors[newTaskIndex];
+    // Sort from most to least promising, then push them in reverse
+    Arrays.sort(childAllocations, Comparator
+        .comparingInt(Allocation::getAllocationHeuristic)
+        .thenComparing(child -> child.taskProcessorAllocation[newTaskIndex] != guideProcessor));
+    for (int i = childAllocations.length - 1; i >= 0; i--) {
+      queue.add(childAllocations[i]);
+    }
+  }
+
+  /**
+   * Finds the processor each task is on in the given complete schedule, relabelled the same way
+   * allocations label processors. Allocations only ever use the lowest empty processor, so the
+   * processors are numbered in the order they're first used in the allocation order. Following
+   * these processors from the root allocation leads to the allocation of the schedule, unless it
+   * breaks the symmetry pruning of equivalent tasks.
+   *
+   * @param schedule The complete schedule to guide the allocations with
+   * @return The guide processor of each task, or {@code null} if the schedule is incomplete or uses
+   * more processors than this allocation has
+   * @see #extendAllocation(Queue, int[])
+   */
+  public int[] getGuideProcessors(Schedule schedule) {
+    ScheduledTask[] scheduledTasks = schedule.getScheduledTasks();
+    int[] processorLabels = new int[this.processors.length];
+    Arrays.fill(processorLabels, -1);
+    int usedLabelCount = 0;
+
+    int[] guideProcessors = new int[this.taskGraph.taskCount()];
+    for (Task task : this.allocationOrder) {
+      ScheduledTask scheduledTask = scheduledTasks[task.getIndex()];
+      if (scheduledTask == null || scheduledTask.getProcessorIndex() >= processorLabels.length) {
+        return null;
       }
-      // Add the new allocation to the stack
-      queue.add(new Allocation(
-          newProcessors,
-          newProcessorWeights,
-          newTaskProcessorAllocation,
-          this.allocationCount + 1,
-          Math.max(this.maxWeight, this.processorWeights[i]),
-          this.taskGraph
-      ));
+
+      int processorIndex = scheduledTask.getProcessorIndex();
+      if (processorLabels[processorIndex] == -1) {
+        processorLabels[processorIndex] = usedLabelCount++;
+      }
+      guideProcessors[task.getIndex()] = processorLabels[processorIndex];
     }
+    return guideProcessors;
   }
 
   /**
-   * Returns whether this is a complete allocation, i.e. All tasks have been allocated to a
-   * processor.
+   * Creates a new allocation with the task allocated to the given processor. Only the bound of that
+   * processor changes, and the heuristic of the new allocation can never be lower than this
+   * allocation's, so only the new terms need to be checked.
+   * <p>
+   * Only the bitmask of the changed processor is copied, but the per-task lookup tables are copied
+   * in full, so this costs O(n + P) for n tasks and P processors, plus the cost of the processor
+   * bound.
    *
-   * @return Whether this is a complete allocation
+   * @param task           The task to allocate
+   * @param processorIndex The processor to allocate the task to
+   * @return The new allocation
    */
-  public boolean isComplete() {
-    return this.allocationCount == this.taskGraph.taskCount();
+  private Allocation allocateTask(Task task, int processorIndex) {
+    long[][] newProcessors = Arrays.copyOf(this.processors, this.processors.length);
+    long[] newProcessorTasks = this.processors[processorIndex].clone();
+    newProcessors[processorIndex] = newProcessorTasks;
+    int[] newProcessorWeights = Arrays.copyOf(this.processorWeights,
+        this.processorWeights.length);
+    int[] newTaskProcessorAllocation = Arrays.copyOf(this.taskProcessorAllocation,
+        this.taskProcessorAllocation.length);
+    int[] newCommunicationTopLevels = Arrays.copyOf(this.communicationTopLevels,
+        this.communicationTopLevels.length);
+
+    int topLevel = this.getCommunicationTopLevel(task, processorIndex);
+    // Only the first empty processor is ever allocated to, so it's the only one that can be new
+    boolean isNewProcessor = processorIndex >= this.usedProcessorCount;
+    newProcessorTasks[task.getIndex() / Long.SIZE] |= 1L << task.getIndex();
+    newProcessorWeights[processorIndex] += task.getWeight();
+    newTaskProcessorAllocation[task.getIndex()] = processorIndex;
+    newCommunicationTopLevels[task.getIndex()] = topLevel;
+
+    int loadHeuristic = this.getProcessorBound(newProcessorTasks, newCommunicationTopLevels);
+    int criticalPath = topLevel + task.getBottomLevel();
+
+    return new Allocation(
+        newProcessors,
+        newProcessorWeights,
+        newTaskProcessorAllocation,
+        newCommunicationTopLevels,
+        this.allocationOrder,
+        this.allocationCount + 1,
+        isNewProcessor ? this.usedProcessorCount + 1 : this.usedProcessorCount,
+        Math.max(this.allocationHeuristic, Math.max(loadHeuristic, criticalPath)),
+        this.taskGraph
+    );
   }
 
   /**
-   * Returns a deep copy of the processors belonging to this allocation.
+   * Finds a lower bound on the makespan from the tasks allocated to a processor. The
+   * communication-aware top level of each task is a release time that it can't start before. For
+   * any release time R, the tasks released at or after R have to run one after another on the
+   * processor, starting no earlier than R. The last of them to finish still has at least the
+   * smallest of their bottom levels (Excluding their own weight) left to run after it.
+   * <p>
+   * Taking R as the smallest release time gives the usual load bound, so this is never weaker than
+   * it. It's only recomputed for the processor that changes, which costs O(k log k) for the k tasks
+   * on the processor.
    *
-   * @return The created processor deep copy
+   * @param processorTasks         The bitmask of the tasks allocated to the processor
+   * @param communicationTopLevels The communication-aware top level of each allocated task
+   * @return The lower bound on the makespan from the processor
    */
-  private Set<Task>[] deepCopyProcessors() {
-    Set<Task>[] newProcessors = new BitSet[this.processors.length];
-    for (int i = 0; i < this.processors.length; i++) {
-      if (this.processors[i] == null) {
-        break;
+  private int getProcessorBound(long[] processorTasks, int[] communicationTopLevels) {
+    // Pack each task's release time and index into a long, so they can be sorted by release time
+    long[] tasksByReleaseTime = new long[getTaskCount(processorTasks)];
+    int taskCount = 0;
+    for (int word = 0; word < processorTasks.length; word++) {
+      for (long remaining = processorTasks[word]; remaining != 0; remaining &= remaining - 1) {
+        int taskIndex = word * Long.SIZE + Long.numberOfTrailingZeros(remaining);
+        tasksByReleaseTime[taskCount++] =
+            ((long) communicationTopLevels[taskIndex] << Integer.SIZE) | taskIndex;
       }
-      newProcessors[i] = new BitSet<>(this.processors[i]);
     }
-    return newProcessors;
+    Arrays.sort(tasksByReleaseTime);
+
+    int bound = 0;
+    int totalWeight = 0;
+    int minRemainingBottomLevel = Integer.MAX_VALUE;
+    for (int i = taskCount - 1; i >= 0; i--) {
+      Task task = this.taskGraph.getTask((int) tasksByReleaseTime[i]);
+      int releaseTime = (int) (tasksByReleaseTime[i] >>> Integer.SIZE);
+      totalWeight += task.getWeight();
+      minRemainingBottomLevel = Math.min(minRemainingBottomLevel,
+          task.getBottomLevel() - task.getWeight());
+      bound = Math.max(bound, releaseTime + totalWeight + minRemainingBottomLevel);
+    }
+    return bound;
   }
 
   /**
-   * Returns the heuristic value of this allocation.
-   * 
-   * @return The heuristic value of this allocation
+   * Finds the communication-aware top level of a task if it were allocated to the given processor.
+   * This is the longest path to the task, where the communication cost of an edge is only included
+   * if its source task is on a different processor.
+   *
+   * @param task           The task being allocated, whose parents must all be allocated
+   * @param processorIndex The processor the task is being allocated to
+   * @return The communication-aware top level of the task
    */
-  public int getAllocationHeuristic() {
-    int maxHeuristic = this.maxWeight;
-    for (int i = 0; i < this.processors.length; i++) {
-      if (this.processors[i] == null) {
-        break;
-      }
-      int loadHeuristic = getLoadHeuristic(i);
-      if (maxHeuristic < loadHeuristic) {
-        maxHeuristic = loadHeuristic;
+  private int getCommunicationTopLevel(Task task, int processorIndex) {
+    int topLevel = 0;
+    for (Edge incomingEdge : task.getIncomingEdges()) {
+      Task parent = incomingEdge.getSource();
+      int parentIndex = parent.getIndex();
+      int dataReadyTime = this.communicationTopLevels[parentIndex] + parent.getWeight();
+      if (this.taskProcessorAllocation[parentIndex] != processorIndex) {
+        dataReadyTime += incomingEdge.getWeight();
       }
+      topLevel = Math.max(topLevel, dataReadyTime);
     }
-
-    return Math.max(maxHeuristic, criticalPathHeuristic());
+    return topLevel;
   }
 
   /**
-   * Returns the load heuristic of a processor.
+   * Returns whether this is a complete allocation, i.e. All tasks have been allocated to a
+   * processor.
    *
-   * @param processorIndex The index of the processor to calculate the load heuristic for
-   * @return The load heuristic of the processor
+   * @return Whether this is a complete allocation
    */
-  private int getLoadHeuristic(int processorIndex) {
-    return minTopLevels(processorIndex) + this.processorWeights[processorIndex]
-        + minBottomLevels(processorIndex);
+  public boolean isComplete() {
+    return this.allocationCount == this.taskGraph.taskCount();
   }
 
   /**
-   * Returns the minimum top level of a processor.
-   * 
-   * @param processorIndex The index of the processor to calculate the minimum top level for
-   * @return The minimum top level of the processor
+   * @return The number of processors in this allocation, including empty processors
    */
-  private int minTopLevels(int processorIndex) {
-    Set<Task> processor = this.processors[processorIndex];
-    return processor.stream().mapToInt(task -> {
-      return task.getTopLevel();
-    }).min().orElse(0);
+  public int getProcessorCount() {
+    return this.processors.length;
   }
 
   /**
-   * Returns the minimum bottom level of a processor.
-   *
-   * @param processorIndex The index of the processor to calculate the minimum bottom level for
-   * @return The minimum bottom level of the processor
+   * @param processorIndex The index of the processor
+   * @return The number of tasks allocated to the processor
    */
-  private int minBottomLevels(int processorIndex) {
-    Set<Task> processor = this.processors[processorIndex];
-    return processor.stream().mapToInt(task -> {
-      return task.getBottomLevel() - task.getWeight();
-    }).min().orElse(0);
+  public int getProcessorTaskCount(int processorIndex) {
+    return getTaskCount(this.processors[processorIndex]);
   }
 
   /**
-   * Returns the critical path heuristic of this allocation.
-   * 
-   * @return The critical path heuristic of this allocation
+   * @param processorTasks The bitmask of the tasks allocated to a processor
+   * @return The number of tasks in the bitmask
    */
-  private int criticalPathHeuristic() {
-    int maxCriticalPath = 0;
-    for (Set<Task> tasks : processors) {
-      if (tasks == null) {
-        break;
-      }
-      for (Task task : tasks) {
-        int criticalPath = task.getBottomLevel() + task.getTopLevel();
-        if (criticalPath > maxCriticalPath) {
-          maxCriticalPath = criticalPath;
-        }
-      }
+  private static int getTaskCount(long[] processorTasks) {
+    int taskCount = 0;
+    for (long word : processorTasks) {
+      taskCount += Long.bitCount(word);
     }
-    return maxCriticalPath;
+    return taskCount;
   }
 
 }
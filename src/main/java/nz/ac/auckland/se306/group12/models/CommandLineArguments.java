@@ -1,6 +1,7 @@
 package nz.ac.auckland.se306.group12.models;
 
 import java.io.File;
+import java.time.Duration;
 
 public record CommandLineArguments(
     File inputDotGraph,
@@ -9,7 +10,12 @@ public record CommandLineArguments(
     int parallelisationProcessorCount,
     boolean visualiseSearch,
     File outputDotGraph,
-    boolean writeToStdOut
+    boolean writeToStdOut,
+    boolean improveIncumbent,
+    double epsilon,
+    Duration timeLimit,
+    Integer sweepMaxProcessorCount,
+    File warmStartSchedule
 ) {
 
 }
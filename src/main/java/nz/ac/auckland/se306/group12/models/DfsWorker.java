@@ -4,23 +4,57 @@ import java.util.Deque;
 import java.util.concurrent.LinkedBlockingDeque;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
 
+/**
+ * The work stack of a single thread in a work-stealing depth-first search. Other workers can steal
+ * work from it when they run out of their own.
+ *
+ * @param <T> The type of the search states, e.g. a {@link Schedule} or an {@link Allocation}
+ */
 @Getter
 @RequiredArgsConstructor
-public class DfsWorker {
+public class DfsWorker<T> {
 
-  private final Deque<Schedule> stack = new LinkedBlockingDeque<>();
+  private final Deque<T> stack = new LinkedBlockingDeque<>();
+  /**
+   * The number of states this worker has searched, which is only updated by the worker's own thread
+   * whenever it synchronises with the global state.
+   */
+  private volatile long searchedCount = 0;
+  /**
+   * The number of states queued on the worker as of its last synchronisation. This is kept
+   * separately so that snapshots can be taken without locking the stack, which the worker's thread
+   * uses for every state it searches.
+   */
+  private volatile int queuedCount = 0;
 
   public boolean hasWork() {
     return !stack.isEmpty();
   }
 
-  public void give(Schedule schedule) {
-    this.stack.push(schedule);
+  public void give(T work) {
+    this.stack.push(work);
   }
 
-  public Schedule steal() {
+  public T steal() {
     return this.stack.pollFirst();
   }
 
+  /**
+   * Records the worker's progress since it last synchronised. This must only be called by the
+   * worker's own thread.
+   *
+   * @param newlySearchedCount The number of states searched since the last synchronisation
+   * @param queuedCount        The number of states now queued on the worker
+   */
+  public void sync(long newlySearchedCount, int queuedCount) {
+    this.searchedCount += newlySearchedCount;
+    this.queuedCount = queuedCount;
+  }
+
+  public WorkerSnapshot toSnapshot() {
+    return new WorkerSnapshot(this.searchedCount, this.queuedCount);
+  }
+
 }
@@ -1,6 +1,7 @@
 package nz.ac.auckland.se306.group12.models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -45,6 +46,15 @@ public class Graph implements IndexableResolver<Task> {
   @Getter
   private int totalTaskWeights = 0;
 
+  /**
+   * The size of the largest set of tasks where no task depends on another, directly or indirectly
+   * (The maximum antichain). No more than this many tasks can ever run at the same time. This is 0
+   * until {@link #setWidth()} has been called.
+   */
+  @Getter
+  @Exclude
+  private int width = 0;
+
   public Graph() {
     // Default name, for when the graph name doesn't matter
     this.name = "Graph";
@@ -172,6 +182,166 @@ public class Graph implements IndexableResolver<Task> {
     }
   }
 
+  /**
+   * Computes the as-late-as-possible (ALAP) start time of every task for a schedule to finish
+   * before the given makespan. A task can't start any later than this, as the tasks on its longest
+   * path to a sink task would then not finish in time. This relies on the bottom levels having
+   * been set by {@link #setTopAndBottomLevels()}.
+   *
+   * @param makespan The makespan of the incumbent schedule, which a schedule has to beat
+   * @return The ALAP start time of each task, by index, or {@code null} if there's no incumbent
+   */
+  public int[] getAlapStartTimes(int makespan) {
+    if (makespan == Integer.MAX_VALUE) {
+      return null;
+    }
+
+    int[] alapStartTimes = new int[this.taskCount()];
+    for (Task task : this.tasks) {
+      alapStartTimes[task.getIndex()] = makespan - 1 - task.getBottomLevel();
+    }
+    return alapStartTimes;
+  }
+
+  /**
+   * This method groups the tasks into equivalence classes and links each task to the previous and
+   * next task (By index) in its class. Two tasks are equivalent if they have the same weight, the
+   * same parents and the same children, with the same communication costs on each edge. Graphs
+   * like forks, joins and independent tasks often have large classes of equivalent tasks, and
+   * fixing their order removes a factorial number of permutations from the search.
+   *
+   * @see Task#getEquivalentPredecessor()
+   */
+  public void setEquivalentTasks() {
+    Map<String, Task> lastTaskWithSignature = new HashMap<>();
+
+    for (Task task : this.tasks) {
+      String signature = this.getEquivalenceSignature(task);
+      Task predecessor = lastTaskWithSignature.put(signature, task);
+      if (predecessor != null) {
+        predecessor.setEquivalentSuccessor(task);
+        task.setEquivalentPredecessor(predecessor);
+      }
+    }
+  }
+
+  /**
+   * Creates a string which is the same for two tasks if and only if they are equivalent. It
+   * consists of the task's weight, followed by the sorted parent and child edges, each as the index
+   * of the task on the other end and the communication cost.
+   *
+   * @param task The task to create the signature for
+   * @return The equivalence signature of the task
+   */
+  private String getEquivalenceSignature(Task task) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(task.getWeight()).append('|');
+    task.getIncomingEdges()
+        .stream()
+        .map(edge -> edge.getSource().getIndex() + "," + edge.getWeight())
+        .sorted()
+        .forEach(edge -> sb.append(edge).append(';'));
+    sb.append('|');
+    task.getOutgoingEdges()
+        .stream()
+        .map(edge -> edge.getDestination().getIndex() + "," + edge.getWeight())
+        .sorted()
+        .forEach(edge -> sb.append(edge).append(';'));
+    return sb.toString();
+  }
+
+  /**
+   * This method computes the {@link #width} of the graph. By Dilworth's theorem, the width is equal
+   * to the minimum number of chains needed to cover every task, which is the number of tasks minus
+   * the size of a maximum matching in the bipartite graph of the reachability relation.
+   */
+  public void setWidth() {
+    int taskCount = this.taskCount();
+    // The reachability bitmasks can't represent more than 64 tasks, so use the trivial bound
+    if (taskCount > Long.SIZE) {
+      this.width = taskCount;
+      return;
+    }
+
+    // A bitmask for each task of all the tasks that depend on it, directly or indirectly
+    long[] descendants = new long[taskCount];
+    for (Task task : this.topologicalSorter.getAReverseTopologicalOrder(this)) {
+      long taskDescendants = 0;
+      for (Edge outEdge : task.getOutgoingEdges()) {
+        int childIndex = outEdge.getDestination().getIndex();
+        taskDescendants |= (1L << childIndex) | descendants[childIndex];
+      }
+      descendants[task.getIndex()] = taskDescendants;
+    }
+
+    int[] matchedAncestors = new int[taskCount];
+    Arrays.fill(matchedAncestors, -1);
+    int matchingSize = 0;
+    for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
+      if (this.findAugmentingPath(taskIndex, descendants, matchedAncestors,
+          new boolean[taskCount])) {
+        matchingSize++;
+      }
+    }
+    this.width = taskCount - matchingSize;
+  }
+
+  /**
+   * Tries to match the given task to one of its descendants using an augmenting path, as in Kuhn's
+   * algorithm for maximum bipartite matchings.
+   *
+   * @param taskIndex        The index of the task to match
+   * @param descendants      The bitmask of descendants of each task
+   * @param matchedAncestors The task each descendant is currently matched to, or -1 if unmatched
+   * @param visited          Which descendants have already been visited while finding this path
+   * @return {@code true} if the matching was extended, {@code false} otherwise
+   */
+  private boolean findAugmentingPath(
+      int taskIndex,
+      long[] descendants,
+      int[] matchedAncestors,
+      boolean[] visited
+  ) {
+    long candidates = descendants[taskIndex];
+    while (candidates != 0) {
+      int descendantIndex = Long.numberOfTrailingZeros(candidates);
+      candidates &= candidates - 1;
+      if (visited[descendantIndex]) {
+        continue;
+      }
+
+      visited[descendantIndex] = true;
+      int matchedAncestor = matchedAncestors[descendantIndex];
+      if (matchedAncestor == -1 || this.findAugmentingPath(
+          matchedAncestor, descendants, matchedAncestors, visited)) {
+        matchedAncestors[descendantIndex] = taskIndex;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of processors that actually need to be searched when scheduling this graph
+   * on the given number of processors. There's never a reason to use more processors than there
+   * are tasks.
+   * <p>
+   * Although no more than {@link #width} tasks can run at the same time, it's not safe to cap the
+   * processors at the width in general. With communication costs, an optimal schedule can need more
+   * processors than the width to keep dependent tasks local to each other. When every
+   * communication cost is 0 this doesn't matter, and the processors can be capped at the width.
+   *
+   * @param processorCount The number of processors being scheduled on
+   * @return The number of processors to search with, which is never more than processorCount
+   */
+  public int getEffectiveProcessorCount(int processorCount) {
+    boolean isCommunicationFree = this.edges.stream().allMatch(edge -> edge.getWeight() == 0);
+    int usableProcessorCount = isCommunicationFree && this.width > 0
+        ? this.width
+        : this.taskCount();
+    return Math.max(1, Math.min(processorCount, usableProcessorCount));
+  }
+
   /**
    * A set of all the source tasks in the graph. A source task is one that has no incoming edges.
    *
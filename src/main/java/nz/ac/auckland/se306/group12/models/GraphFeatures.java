@@ -0,0 +1,80 @@
+package nz.ac.auckland.se306.group12.models;
+
+import java.util.Set;
+
+/**
+ * Cheap features of a task graph and the number of processors it's being scheduled on, which are
+ * used to choose the algorithm to schedule it with. These must be computed the same way as in
+ * {@code scripts/TrainAlgorithmSelector.py}, which trains the model that uses them.
+ *
+ * @param nodes             The number of tasks in the graph
+ * @param density           The number of edges as a fraction of the most edges a DAG with this
+ *                          many tasks could have
+ * @param ccr               The communication to computation ratio, i.e. the total weight of the
+ *                          edges divided by the total weight of the tasks
+ * @param width             The most tasks that can run at the same time
+ * @param criticalPathRatio The length of the critical path (Ignoring communication costs) divided
+ *                          by the total weight of the tasks
+ * @param processors        The number of processors to schedule on
+ */
+public record GraphFeatures(
+    int nodes,
+    double density,
+    double ccr,
+    int width,
+    double criticalPathRatio,
+    int processors
+) {
+
+  /**
+   * The names of the features in the algorithm selection model.
+   *
+   * @see #get(String)
+   */
+  public static final Set<String> FEATURE_NAMES =
+      Set.of("nodes", "density", "ccr", "width", "cpr", "processors");
+
+  /**
+   * Computes the features of the given graph. This relies on the bottom levels and width of the
+   * graph having already been set.
+   *
+   * @param taskGraph      The graph to compute the features of
+   * @param processorCount The number of processors the graph is being scheduled on
+   * @return The features of the graph
+   */
+  public static GraphFeatures of(Graph taskGraph, int processorCount) {
+    int taskCount = taskGraph.taskCount();
+    double totalTaskWeight = taskGraph.getTotalTaskWeights();
+    double maxEdgeCount = taskCount * (taskCount - 1) / 2.0;
+    int totalEdgeWeight = taskGraph.getEdges().stream().mapToInt(Edge::getWeight).sum();
+    int criticalPath = taskGraph.getTasks().stream().mapToInt(Task::getBottomLevel).max().orElse(0);
+
+    return new GraphFeatures(
+        taskCount,
+        maxEdgeCount > 0 ? taskGraph.getEdges().size() / maxEdgeCount : 0,
+        totalTaskWeight > 0 ? totalEdgeWeight / totalTaskWeight : 0,
+        taskGraph.getWidth(),
+        totalTaskWeight > 0 ? criticalPath / totalTaskWeight : 0,
+        processorCount);
+  }
+
+  /**
+   * Gets a feature by the name it has in the algorithm selection model.
+   *
+   * @param featureName The name of the feature
+   * @return The value of the feature
+   * @throws IllegalArgumentException If there is no feature with the given name
+   */
+  public double get(String featureName) {
+    return switch (featureName) {
+      case "nodes" -> this.nodes;
+      case "density" -> this.density;
+      case "ccr" -> this.ccr;
+      case "width" -> this.width;
+      case "cpr" -> this.criticalPathRatio;
+      case "processors" -> this.processors;
+      default -> throw new IllegalArgumentException("Unknown graph feature " + featureName);
+    };
+  }
+
+}
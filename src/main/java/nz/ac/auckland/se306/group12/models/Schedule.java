@@ -1,7 +1,9 @@
 package nz.ac.auckland.se306.group12.models;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Set;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
@@ -26,6 +28,28 @@ public class Schedule implements Comparable<Schedule> {
   protected final int estimatedMakespan;
   protected final int totalIdleTime;
 
+  /**
+   * The task that was scheduled last to create this schedule, or {@code null} if this is the empty
+   * schedule. This, along with {@link #parentFullyExpanded}, is set by
+   * {@link #extendWithTask(ScheduledTask, Task)} and is used for the partial-order reduction.
+   *
+   * @see #isRedundantTransposition(Task, int, int)
+   */
+  @ToString.Exclude
+  protected Task lastScheduledTask;
+  /**
+   * Whether every ready task of the schedule this was extended from was expanded, rather than only
+   * the first task in a fixed task order.
+   */
+  @ToString.Exclude
+  protected boolean parentFullyExpanded;
+  /**
+   * A cache of {@link #getExpandableTasks()}, as it's needed again when creating each child.
+   */
+  @Getter(AccessLevel.NONE)
+  @ToString.Exclude
+  private Set<Task> expandableTasks;
+
   /**
    * A constructor for creating a new schedule
    *
@@ -37,10 +61,15 @@ public class Schedule implements Comparable<Schedule> {
     this.processorEndTimes = new int[processorCount];
     this.scheduledTaskCount = 0;
     this.latestEndTime = 0;
-    this.readyTasks = taskGraph.getSourceTasks();
+    // Only the first task of each equivalence class can be ready, the rest follow in index order
+    this.readyTasks = taskGraph.getSourceTasks()
+        .stream()
+        .filter(task -> task.getEquivalentPredecessor() == null)
+        .collect(BitSet.collect(taskGraph));
     this.totalTaskWeights = taskGraph.getTotalTaskWeights();
     this.totalIdleTime = 0;
-    this.estimatedMakespan = this.estimateIdleTimeMakespan(this.totalIdleTime);
+    this.estimatedMakespan = Math.max(this.estimateIdleTimeMakespan(this.totalIdleTime),
+        this.estimateWidthMakespan(taskGraph));
   }
 
   /**
@@ -49,26 +78,284 @@ public class Schedule implements Comparable<Schedule> {
    * to this instance (allowing it to be garbage collected). A scheduled task is uniquely identified
    * by its taskIndex, startTime and processorIndex, hence all 3 need to be included in the string.
    * <p>
+   * As the processors are homogeneous, two schedules which only differ by a relabelling of the
+   * processors are equivalent. To detect these as duplicates too, the processors are relabelled in
+   * the order of the lowest index task scheduled on them, rather than using their actual index.
+   * <p>
    * Note: This doesn't have to be cached as a field because it is only called once per schedule.
    *
    * @return The unique string representation of this schedule
    */
   public String generateUniqueString() {
     StringBuilder sb = new StringBuilder();
+    int[] canonicalProcessorIndices = new int[this.getProcessorCount()];
+    Arrays.fill(canonicalProcessorIndices, -1);
+    int nextCanonicalProcessorIndex = 0;
+
     int taskCount = this.scheduledTasks.length;
     for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
       ScheduledTask scheduledTask = this.scheduledTasks[taskIndex];
       if (scheduledTask != null) {
+        int processorIndex = scheduledTask.getProcessorIndex();
+        if (canonicalProcessorIndices[processorIndex] == -1) {
+          canonicalProcessorIndices[processorIndex] = nextCanonicalProcessorIndex++;
+        }
+
         // Separate numbers with commas so that we don't accidentally create new numbers that
         // collide with other schedules
         sb.append(taskIndex).append(',')
             .append(scheduledTask.getStartTime()).append(',')
-            .append(scheduledTask.getProcessorIndex()).append(';');
+            .append(canonicalProcessorIndices[processorIndex]).append(';');
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Checks if any task can no longer start by its ALAP start time in this schedule, in which case
+   * no completion of this schedule can beat the incumbent it was computed from. This looks ahead
+   * at the unscheduled tasks, which the estimated makespan doesn't, and so can detect dead
+   * schedules several tasks earlier.
+   * <p>
+   * The earliest start of a ready task is the earliest time it can start on any of the allocable
+   * processors. Any other unscheduled task can't start before its scheduled parents finish, nor
+   * before the earliest time a processor becomes free.
+   *
+   * @param alapStartTimes The ALAP start time of each task, or {@code null} if there's no incumbent
+   * @param taskGraph      The task graph being scheduled
+   * @return {@code true} if a task can't start by its ALAP start time, {@code false} otherwise
+   * @see Graph#getAlapStartTimes(int)
+   */
+  public boolean isPastAlapStartTimes(int[] alapStartTimes, Graph taskGraph) {
+    if (alapStartTimes == null) {
+      return false;
+    }
+
+    int allocableProcessorCount = this.getAllocableProcessorCount();
+    int earliestProcessorEndTime = Integer.MAX_VALUE;
+    for (int processorIndex = 0; processorIndex < allocableProcessorCount; processorIndex++) {
+      earliestProcessorEndTime = Math.min(earliestProcessorEndTime,
+          this.processorEndTimes[processorIndex]);
+    }
+
+    for (Task task : taskGraph.getTasks()) {
+      int taskIndex = task.getIndex();
+      if (this.scheduledTasks[taskIndex] != null) {
+        continue;
+      }
+
+      int earliestStartTime;
+      if (this.readyTasks.contains(task)) {
+        earliestStartTime = Integer.MAX_VALUE;
+        int[] dataReadyTimes = this.getLatestStartTimesOf(task);
+        for (int processorIndex = 0; processorIndex < allocableProcessorCount; processorIndex++) {
+          earliestStartTime = Math.min(earliestStartTime,
+              Math.max(dataReadyTimes[processorIndex], this.processorEndTimes[processorIndex]));
+        }
+      } else {
+        earliestStartTime = earliestProcessorEndTime;
+        for (Edge incomingEdge : task.getIncomingEdges()) {
+          ScheduledTask parent = this.scheduledTasks[incomingEdge.getSource().getIndex()];
+          if (parent != null) {
+            earliestStartTime = Math.max(earliestStartTime, parent.getEndTime());
+          }
+        }
+      }
+
+      if (earliestStartTime > alapStartTimes[taskIndex]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Generates the dominance key and vector of this schedule together, so that the frontier tasks
+   * and the canonical order of the frontier processors are only found once for both.
+   *
+   * @param taskGraph The task graph being scheduled
+   * @return The dominance key and vector of this schedule
+   * @see Dominance
+   */
+  public Dominance generateDominance(Graph taskGraph) {
+    boolean[] isFrontierTask = this.getFrontierTasks(taskGraph);
+    int[] canonicalProcessorIndices = this.getCanonicalFrontierProcessorIndices(isFrontierTask);
+    return new Dominance(
+        this.generateDominanceKey(isFrontierTask, canonicalProcessorIndices),
+        this.generateDominanceVector(isFrontierTask, canonicalProcessorIndices));
+  }
+
+  /**
+   * Generates a key which identifies the schedules that can be compared to this one for dominance.
+   * Two schedules have the same key if they have scheduled the same tasks, and their frontier tasks
+   * (Scheduled tasks with at least one unscheduled child) are grouped onto processors in the same
+   * way. The frontier processors are relabelled in the order of the lowest index frontier task
+   * scheduled on them, so that schedules which only differ by a relabelling have the same key.
+   *
+   * @param isFrontierTask            Whether each task, by index, is a frontier task
+   * @param canonicalProcessorIndices The canonical index of each frontier processor
+   * @return The dominance key of this schedule
+   */
+  private String generateDominanceKey(boolean[] isFrontierTask, int[] canonicalProcessorIndices) {
+    StringBuilder sb = new StringBuilder();
+    int taskCount = this.scheduledTasks.length;
+    for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
+      ScheduledTask scheduledTask = this.scheduledTasks[taskIndex];
+      if (scheduledTask == null) {
+        sb.append('-');
+      } else if (isFrontierTask[taskIndex]) {
+        sb.append(canonicalProcessorIndices[scheduledTask.getProcessorIndex()]);
+      } else {
+        sb.append('+');
       }
+      sb.append(',');
     }
     return sb.toString();
   }
 
+  /**
+   * Generates the vector of times used to check if this schedule is dominated by another schedule
+   * with the same dominance key. It consists of the end time of each processor, with the frontier
+   * processors first (In their canonical order) followed by the remaining processors sorted by end
+   * time, and then the end time of each frontier task.
+   * <p>
+   * The unscheduled tasks only depend on the frontier tasks, so if every element of this vector is
+   * no less than the corresponding element of another schedule's vector, then any way of completing
+   * this schedule can also be applied to the other schedule without finishing any later. This
+   * schedule can then be pruned without losing optimality.
+   *
+   * @param isFrontierTask            Whether each task, by index, is a frontier task
+   * @param canonicalProcessorIndices The canonical index of each frontier processor
+   * @return The dominance vector of this schedule
+   */
+  private int[] generateDominanceVector(boolean[] isFrontierTask,
+      int[] canonicalProcessorIndices) {
+    int processorCount = this.getProcessorCount();
+
+    int frontierProcessorCount = 0;
+    int[] otherProcessorEndTimes = new int[processorCount];
+    int otherProcessorCount = 0;
+    for (int processorIndex = 0; processorIndex < processorCount; processorIndex++) {
+      if (canonicalProcessorIndices[processorIndex] == -1) {
+        otherProcessorEndTimes[otherProcessorCount++] = this.processorEndTimes[processorIndex];
+      } else {
+        frontierProcessorCount++;
+      }
+    }
+    Arrays.sort(otherProcessorEndTimes, 0, otherProcessorCount);
+
+    int taskCount = this.scheduledTasks.length;
+    int[] frontierTaskEndTimes = new int[taskCount];
+    int frontierTaskCount = 0;
+    for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
+      if (isFrontierTask[taskIndex]) {
+        frontierTaskEndTimes[frontierTaskCount++] = this.scheduledTasks[taskIndex].getEndTime();
+      }
+    }
+
+    int[] vector = new int[processorCount + frontierTaskCount];
+    for (int processorIndex = 0; processorIndex < processorCount; processorIndex++) {
+      int canonicalProcessorIndex = canonicalProcessorIndices[processorIndex];
+      if (canonicalProcessorIndex != -1) {
+        vector[canonicalProcessorIndex] = this.processorEndTimes[processorIndex];
+      }
+    }
+    System.arraycopy(otherProcessorEndTimes, 0, vector, frontierProcessorCount,
+        otherProcessorCount);
+    System.arraycopy(frontierTaskEndTimes, 0, vector, processorCount, frontierTaskCount);
+    return vector;
+  }
+
+  /**
+   * Finds the processors which are interchangeable with a lower index processor. Two non-empty
+   * processors are interchangeable if they have the same end time and neither has a frontier task
+   * scheduled on it, as then no unscheduled task receives data from either of them. Placing a task
+   * on one or the other creates schedules which only differ by a relabelling of the processors, so
+   * only the lowest index processor of each interchangeable group needs to be expanded.
+   * <p>
+   * This extends the symmetry that {@link ScheduleWithAnEmptyProcessor} exploits for empty
+   * processors to non-empty processors.
+   *
+   * @param taskGraph The task graph being scheduled
+   * @return Whether each processor, by index, is interchangeable with a lower index processor
+   */
+  public boolean[] getInterchangeableProcessors(Graph taskGraph) {
+    int processorCount = this.getProcessorCount();
+    boolean[] isInterchangeable = new boolean[processorCount];
+    if (this.scheduledTaskCount < 2 || processorCount < 2) {
+      return isInterchangeable;
+    }
+
+    boolean[] hasFrontierTask = new boolean[processorCount];
+    boolean[] isFrontierTask = this.getFrontierTasks(taskGraph);
+    for (int taskIndex = 0; taskIndex < isFrontierTask.length; taskIndex++) {
+      if (isFrontierTask[taskIndex]) {
+        hasFrontierTask[this.scheduledTasks[taskIndex].getProcessorIndex()] = true;
+      }
+    }
+
+    for (int processorIndex = 1; processorIndex < processorCount; processorIndex++) {
+      int endTime = this.processorEndTimes[processorIndex];
+      // A processor with an end time of 0 may be empty, which is already handled
+      if (endTime == 0 || hasFrontierTask[processorIndex]) {
+        continue;
+      }
+      for (int otherIndex = 0; otherIndex < processorIndex; otherIndex++) {
+        if (this.processorEndTimes[otherIndex] == endTime && !hasFrontierTask[otherIndex]) {
+          isInterchangeable[processorIndex] = true;
+          break;
+        }
+      }
+    }
+    return isInterchangeable;
+  }
+
+  /**
+   * Finds the frontier tasks of this schedule, which are the scheduled tasks with at least one
+   * unscheduled child.
+   *
+   * @param taskGraph The task graph being scheduled
+   * @return Whether each task, by index, is a frontier task
+   */
+  private boolean[] getFrontierTasks(Graph taskGraph) {
+    boolean[] isFrontierTask = new boolean[this.scheduledTasks.length];
+    for (Task task : taskGraph.getTasks()) {
+      if (this.scheduledTasks[task.getIndex()] == null) {
+        for (Edge incomingEdge : task.getIncomingEdges()) {
+          int parentIndex = incomingEdge.getSource().getIndex();
+          if (this.scheduledTasks[parentIndex] != null) {
+            isFrontierTask[parentIndex] = true;
+          }
+        }
+      }
+    }
+    return isFrontierTask;
+  }
+
+  /**
+   * Relabels the processors which have a frontier task scheduled on them in the order of the
+   * lowest index frontier task on each processor.
+   *
+   * @param isFrontierTask Whether each task, by index, is a frontier task
+   * @return The canonical index of each processor, or -1 if it has no frontier tasks
+   */
+  private int[] getCanonicalFrontierProcessorIndices(boolean[] isFrontierTask) {
+    int[] canonicalProcessorIndices = new int[this.getProcessorCount()];
+    Arrays.fill(canonicalProcessorIndices, -1);
+    int nextCanonicalProcessorIndex = 0;
+
+    int taskCount = this.scheduledTasks.length;
+    for (int taskIndex = 0; taskIndex < taskCount; taskIndex++) {
+      if (isFrontierTask[taskIndex]) {
+        int processorIndex = this.scheduledTasks[taskIndex].getProcessorIndex();
+        if (canonicalProcessorIndices[processorIndex] == -1) {
+          canonicalProcessorIndices[processorIndex] = nextCanonicalProcessorIndex++;
+        }
+      }
+    }
+    return canonicalProcessorIndices;
+  }
+
   /**
    * Returns the number of processors that support having a task scheduled on it. If this returns n,
    * then that means processors 0 to n-1 are available for scheduling. This enables processor
@@ -102,7 +389,7 @@ public class Schedule implements Comparable<Schedule> {
     int newLatestEndTime = Math.max(this.latestEndTime, scheduledTask.getEndTime());
     int newEstimatedMakespan = this.estimateNewMakespan(scheduledTask, task, newTotalIdleTime);
 
-    return this.createInstance(
+    Schedule newSchedule = this.createInstance(
         newScheduledTasks,
         newProcessorEndTimes,
         newLatestEndTime,
@@ -110,6 +397,9 @@ public class Schedule implements Comparable<Schedule> {
         newEstimatedMakespan,
         newTotalIdleTime
     );
+    newSchedule.lastScheduledTask = task;
+    newSchedule.parentFullyExpanded = this.getExpandableTasks() == this.readyTasks;
+    return newSchedule;
   }
 
   /**
@@ -155,11 +445,19 @@ public class Schedule implements Comparable<Schedule> {
         newReadyTasks.add(child);
       }
     }
+
+    // Equivalent tasks share the same parents, so the next task in the class is now ready too
+    Task equivalentSuccessor = task.getEquivalentSuccessor();
+    if (equivalentSuccessor != null) {
+      newReadyTasks.add(equivalentSuccessor);
+    }
     return newReadyTasks;
   }
 
   /**
-   * This method checks if a task is ready to be scheduled
+   * This method checks if a task is ready to be scheduled. To avoid exploring permutations of
+   * equivalent tasks, a task is also not ready until the previous task in its equivalence class has
+   * been scheduled.
    * <p>
    * While this method checks through all incoming edges, the profiler shows that this method has
    * low impact on performance even though there are possible alternatives such as decrementing a
@@ -170,6 +468,11 @@ public class Schedule implements Comparable<Schedule> {
    * @return True if the task is ready to be scheduled, false otherwise
    */
   private boolean isTaskReady(ScheduledTask[] newScheduledTasks, Task child) {
+    Task equivalentPredecessor = child.getEquivalentPredecessor();
+    if (equivalentPredecessor != null
+        && newScheduledTasks[equivalentPredecessor.getIndex()] == null) {
+      return false;
+    }
     for (Edge incomingEdge : child.getIncomingEdges()) {
       if (newScheduledTasks[incomingEdge.getSource().getIndex()] == null) {
         return false;
@@ -178,6 +481,172 @@ public class Schedule implements Comparable<Schedule> {
     return true;
   }
 
+  /**
+   * Returns the ready tasks that need to be expanded when creating the children of this schedule.
+   * Normally this is all the ready tasks, however, if the ready tasks have a fixed task order then
+   * it's enough to only expand the first task in that order.
+   *
+   * @return The ready tasks that children of this schedule should be created for
+   * @see #getFirstTaskInFixedOrder()
+   */
+  public Set<Task> getExpandableTasks() {
+    if (this.expandableTasks == null) {
+      Task firstTask = this.getFirstTaskInFixedOrder();
+      this.expandableTasks = firstTask == null ? this.readyTasks : Set.of(firstTask);
+    }
+    return this.expandableTasks;
+  }
+
+  /**
+   * Checks if scheduling the given task next only creates a transposition of a schedule that is
+   * already created elsewhere in the search tree. If task A was scheduled last and task B is
+   * independent of it (B was already ready before A and is placed on a different, non-empty
+   * processor), then placing A then B gives the same schedule as placing B then A, as neither
+   * changes the start time of the other. Only the order where the task with the earlier start time
+   * (Or lower index, if they start at the same time) comes first is generated.
+   * <p>
+   * Placing B first is only generated if B was expanded in the parent schedule, so this only
+   * applies when the parent expanded all of its ready tasks. Placements on an empty processor are
+   * never skipped, as the processor may not have been allocable in the parent.
+   * <p>
+   * This is still safe when a schedule is cut by the closed set or by dominance after being reached
+   * in a different order. Placing the remaining tasks in order of start time (Then index) never
+   * compares them with an earlier task than the one placed last, so it's never skipped however the
+   * schedule was reached.
+   *
+   * @param task           The task that would be scheduled next
+   * @param processorIndex The processor the task would be scheduled on
+   * @param startTime      The time the task would start at
+   * @return {@code true} if this placement can be skipped, {@code false} otherwise
+   */
+  public boolean isRedundantTransposition(Task task, int processorIndex, int startTime) {
+    Task lastTask = this.lastScheduledTask;
+    if (lastTask == null || !this.parentFullyExpanded
+        || this.processorEndTimes[processorIndex] == 0
+        || task == lastTask.getEquivalentSuccessor()) {
+      return false;
+    }
+
+    ScheduledTask lastScheduledTask = this.scheduledTasks[lastTask.getIndex()];
+    if (processorIndex == lastScheduledTask.getProcessorIndex()) {
+      return false;
+    }
+    for (Edge outEdge : lastTask.getOutgoingEdges()) {
+      if (outEdge.getDestination() == task) {
+        return false;
+      }
+    }
+
+    return startTime < lastScheduledTask.getStartTime()
+        || (startTime == lastScheduledTask.getStartTime() && task.getIndex() < lastTask.getIndex());
+  }
+
+  /**
+   * Checks if the ready tasks form a fork, join or independent structure where an optimal order of
+   * the ready tasks can be fixed in advance. This is the case when:
+   * <ol>
+   *   <li>Every ready task has at most one parent and at most one child</li>
+   *   <li>Either all the ready tasks have the same child, or none of them have a child</li>
+   *   <li>All the parents of the ready tasks are on the same processor</li>
+   *   <li>When sorted by data ready time (With ties broken by decreasing out-edge cost), the
+   *   out-edge costs are also non-increasing</li>
+   * </ol>
+   * In this case, scheduling the ready tasks in that order is always at least as good as any other
+   * order, so there is no need to branch on which task to schedule next.
+   * <p>
+   * As the data ready time differs between the parents' processor and every other processor, the
+   * order has to be sorted by both for it to be fixed.
+   *
+   * @return The first task in the fixed order, or {@code null} if there is no fixed order
+   */
+  private Task getFirstTaskInFixedOrder() {
+    if (this.readyTasks.size() < 2) {
+      return null;
+    }
+
+    Task commonChild = null;
+    int parentProcessorIndex = -1;
+    int sinkCount = 0;
+    Task[] fixedOrder = new Task[this.readyTasks.size()];
+    int taskCount = 0;
+
+    for (Task task : this.readyTasks) {
+      if (task.getIncomingEdges().size() > 1 || task.getOutgoingEdges().size() > 1) {
+        return null;
+      }
+
+      if (task.isSink()) {
+        sinkCount++;
+      } else {
+        Task child = task.getOutgoingEdges().iterator().next().getDestination();
+        if (commonChild == null) {
+          commonChild = child;
+        } else if (commonChild != child) {
+          return null;
+        }
+      }
+
+      if (!task.isSource()) {
+        Task parent = task.getIncomingEdges().iterator().next().getSource();
+        int processorIndex = this.scheduledTasks[parent.getIndex()].getProcessorIndex();
+        if (parentProcessorIndex == -1) {
+          parentProcessorIndex = processorIndex;
+        } else if (parentProcessorIndex != processorIndex) {
+          return null;
+        }
+      }
+
+      fixedOrder[taskCount++] = task;
+    }
+
+    if (commonChild != null && sinkCount != 0) {
+      return null;
+    }
+
+    Arrays.sort(fixedOrder, Comparator
+        .comparingInt((Task task) -> this.getDataReadyTime(task, true))
+        .thenComparingInt(task -> this.getDataReadyTime(task, false))
+        .thenComparing(Comparator.comparingInt(Schedule::getOutEdgeCost).reversed()));
+
+    for (int i = 1; i < fixedOrder.length; i++) {
+      Task previous = fixedOrder[i - 1];
+      Task current = fixedOrder[i];
+      if (this.getDataReadyTime(current, false) < this.getDataReadyTime(previous, false)
+          || Schedule.getOutEdgeCost(current) > Schedule.getOutEdgeCost(previous)) {
+        return null;
+      }
+    }
+    return fixedOrder[0];
+  }
+
+  /**
+   * The data ready time of a task with at most one parent is the time at which the data from its
+   * parent arrives. Source tasks are ready from the start.
+   *
+   * @param task   A ready task with at most one parent
+   * @param remote Whether to get the data ready time on a processor other than the parent's
+   * @return The data ready time of the task
+   */
+  private int getDataReadyTime(Task task, boolean remote) {
+    if (task.isSource()) {
+      return 0;
+    }
+    Edge inEdge = task.getIncomingEdges().iterator().next();
+    int parentEndTime = this.scheduledTasks[inEdge.getSource().getIndex()].getEndTime();
+    return remote ? parentEndTime + inEdge.getWeight() : parentEndTime;
+  }
+
+  /**
+   * @param task A task with at most one child
+   * @return The communication cost to the child of the task, or 0 if it has no children
+   */
+  private static int getOutEdgeCost(Task task) {
+    if (task.isSink()) {
+      return 0;
+    }
+    return task.getOutgoingEdges().iterator().next().getWeight();
+  }
+
   /**
    * This method finds the latest start time for a task on each processor
    *
@@ -254,6 +723,24 @@ public class Schedule implements Comparable<Schedule> {
     return (newTotalIdleTime + this.totalTaskWeights) / this.getProcessorCount();
   }
 
+  /**
+   * No more than {@link Graph#getWidth()} tasks can ever run at the same time, regardless of how
+   * many processors there are. Hence, if the graph is narrower than the number of processors, the
+   * total weight of the tasks divided by the width is a tighter underestimate than dividing by the
+   * number of processors. As the estimated makespan of a schedule is never lower than its parent's,
+   * this only needs to be computed for the empty schedule.
+   *
+   * @param taskGraph The task graph being scheduled
+   * @return The width underestimate of the makespan, or 0 if the width hasn't been computed
+   */
+  private int estimateWidthMakespan(Graph taskGraph) {
+    int width = taskGraph.getWidth();
+    if (width == 0) {
+      return 0;
+    }
+    return this.totalTaskWeights / Math.min(width, this.getProcessorCount());
+  }
+
   /**
    * This method returns the bottom level estimate of the makespan of this scheduled task. This
    * estimate is determined by the start time and the bottom level of the task. This will always be
@@ -266,7 +753,8 @@ public class Schedule implements Comparable<Schedule> {
    *      Kozlov & Shahul: Optimal Scheduling of Task Graphs on Parallel Systems</a>, Section 3.1
    */
   private int estimateBottomLevelMakespan(ScheduledTask scheduledTask, Task task) {
-    return scheduledTask.getEndTime() + task.getBottomLevel();
+    // The bottom level already includes the weight of the task itself
+    return scheduledTask.getStartTime() + task.getBottomLevel();
   }
 
   /**
@@ -305,4 +793,16 @@ public class Schedule implements Comparable<Schedule> {
     return Arrays.hashCode(this.scheduledTasks);
   }
 
+  /**
+   * The dominance key and vector of a schedule. A schedule is dominated by another schedule with
+   * the same key if every element of its vector is no less than the other schedule's.
+   *
+   * @param key    Identifies the schedules that can be compared to this one for dominance
+   * @param vector The end times of the processors and frontier tasks to compare
+   * @see #generateDominance(Graph)
+   */
+  public record Dominance(String key, int[] vector) {
+
+  }
+
 }
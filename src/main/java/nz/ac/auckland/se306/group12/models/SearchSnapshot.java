@@ -0,0 +1,59 @@
+package nz.ac.auckland.se306.group12.models;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * An immutable view of the progress of a search at a single point in time. Schedulers publish a
+ * new snapshot every so often through a single volatile reference, so it can be read as often as
+ * needed from any thread without locking or slowing the search down, and all of its fields were
+ * taken at the same time.
+ *
+ * @param status        The status of the scheduler
+ * @param searchedCount The number of partial schedules searched so far
+ * @param prunedCount   The number of partial schedules pruned so far
+ * @param incumbent     The best complete schedule found so far, or {@code null} if there isn't one
+ * @param bestSchedule  The schedule the scheduler considers its best so far, which is the incumbent
+ *                      for most searches, but for searches like A* that only find a complete
+ *                      schedule at the very end, is the partial schedule they're expanding
+ * @param lowerBound    The best proven lower bound on the optimal makespan so far
+ * @param workers       The state of each of the search's workers
+ * @param timestamp     When the snapshot was taken
+ */
+public record SearchSnapshot(
+    SchedulerStatus status,
+    long searchedCount,
+    long prunedCount,
+    Schedule incumbent,
+    Schedule bestSchedule,
+    int lowerBound,
+    List<WorkerSnapshot> workers,
+    Instant timestamp
+) {
+
+  /**
+   * The snapshot of a scheduler that hasn't started searching yet.
+   */
+  public static final SearchSnapshot IDLE = new SearchSnapshot(
+      SchedulerStatus.IDLE, 0, 0, null, null, 0, List.of(), Instant.EPOCH);
+
+  /**
+   * Creates a new {@link SearchSnapshot} instance, copying the list of workers so that it can't be
+   * modified afterwards.
+   */
+  public SearchSnapshot {
+    workers = List.copyOf(workers);
+  }
+
+  /**
+   * The state of a single worker (Usually a thread) of a search.
+   *
+   * @param searchedCount The number of partial schedules this worker has searched so far
+   * @param queuedCount   The number of partial schedules (Or allocations) the worker has queued
+   *                      to search next
+   */
+  public record WorkerSnapshot(long searchedCount, int queuedCount) {
+
+  }
+
+}
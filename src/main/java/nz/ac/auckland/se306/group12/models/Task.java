@@ -42,6 +42,28 @@ public class Task implements Indexable {
   @Setter
   private int topLevel = 0;
 
+  /**
+   * The previous task (By index) in this task's equivalence class, or {@code null} if this is the
+   * first task in its class. Two tasks are equivalent if they have the same weight, the same
+   * parents and the same children, with the same communication costs. Swapping equivalent tasks in
+   * a schedule produces another valid schedule with the same makespan, so schedulers only need to
+   * consider one order for the tasks within a class.
+   *
+   * @see Graph#setEquivalentTasks()
+   */
+  @Setter
+  @ToString.Exclude
+  private Task equivalentPredecessor;
+  /**
+   * The next task (By index) in this task's equivalence class, or {@code null} if this is the last
+   * task in its class.
+   *
+   * @see #equivalentPredecessor
+   */
+  @Setter
+  @ToString.Exclude
+  private Task equivalentSuccessor;
+
   /**
    * This method should not be used in performance sensitive areas as it recreates the entire
    * incomingEdges as a new set
@@ -0,0 +1,58 @@
+package nz.ac.auckland.se306.group12.models.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A growable stack of primitive ints. It is intended to be reused as a scratch buffer, so that hot
+ * loops don't have to allocate a new collection (And box every element) each time they run.
+ */
+public class IntStack {
+
+  private int[] elements;
+  private int size = 0;
+
+  /**
+   * Creates a new, empty {@link IntStack} instance.
+   *
+   * @param initialCapacity The number of elements the stack can hold before it needs to grow
+   */
+  public IntStack(int initialCapacity) {
+    this.elements = new int[Math.max(1, initialCapacity)];
+  }
+
+  /**
+   * Pushes an element onto the top of the stack, growing it if it's full.
+   *
+   * @param element The element to push
+   */
+  public void push(int element) {
+    if (this.size == this.elements.length) {
+      this.elements = Arrays.copyOf(this.elements, this.size * 2);
+    }
+    this.elements[this.size++] = element;
+  }
+
+  /**
+   * Removes and returns the element at the top of the stack. The stack must not be empty.
+   *
+   * @return The element at the top of the stack
+   */
+  public int pop() {
+    return this.elements[--this.size];
+  }
+
+  /**
+   * @return {@code true} if there are no elements in the stack, {@code false} otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Removes all the elements from the stack, without shrinking it.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+}
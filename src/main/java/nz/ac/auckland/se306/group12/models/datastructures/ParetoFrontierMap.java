@@ -0,0 +1,83 @@
+package nz.ac.auckland.se306.group12.models.datastructures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A map from keys to a small Pareto frontier of integer vectors. A vector dominates another if
+ * every one of its elements is less than or equal to the corresponding element in the other
+ * vector. Only vectors with the same key are compared, and all vectors with the same key are
+ * expected to have the same length.
+ * <p>
+ * Both the number of keys and the size of each frontier are bounded. When either is exceeded the
+ * eldest entries are forgotten, which only means that less is pruned, so this is always safe to use
+ * for pruning.
+ *
+ * @param <K> The type of the keys in the map
+ */
+public class ParetoFrontierMap<K> {
+
+  private final Map<K, List<int[]>> frontiers;
+  private final int maxFrontierSize;
+
+  /**
+   * Creates a new {@link ParetoFrontierMap} instance.
+   *
+   * @param maxKeyCount     The max number of keys to store frontiers for
+   * @param initialCapacity The initial capacity of the underlying map
+   * @param maxFrontierSize The max number of vectors to store for each key
+   */
+  public ParetoFrontierMap(int maxKeyCount, int initialCapacity, int maxFrontierSize) {
+    this.frontiers = new MaxSizeHashMap<>(maxKeyCount, initialCapacity);
+    this.maxFrontierSize = maxFrontierSize;
+  }
+
+  /**
+   * Adds the vector to the frontier of the given key, unless it's dominated by (Or equal to) a
+   * vector that's already in the frontier. Any vectors in the frontier that are dominated by the
+   * new vector are removed.
+   *
+   * @param key    The key of the frontier to add the vector to
+   * @param vector The vector to add
+   * @return {@code true} if the vector was added, {@code false} if it was dominated
+   */
+  public boolean addIfNotDominated(K key, int[] vector) {
+    List<int[]> frontier = this.frontiers.get(key);
+    if (frontier == null) {
+      frontier = new ArrayList<>(2);
+      frontier.add(vector);
+      this.frontiers.put(key, frontier);
+      return true;
+    }
+
+    for (int[] existingVector : frontier) {
+      if (dominates(existingVector, vector)) {
+        return false;
+      }
+    }
+
+    frontier.removeIf(existingVector -> dominates(vector, existingVector));
+    if (frontier.size() == this.maxFrontierSize) {
+      frontier.remove(0);
+    }
+    frontier.add(vector);
+    return true;
+  }
+
+  /**
+   * @param vector      The vector which may be dominating
+   * @param otherVector The vector which may be dominated
+   * @return {@code true} if every element of vector is no greater than the corresponding element
+   * of otherVector, {@code false} otherwise
+   */
+  private static boolean dominates(int[] vector, int[] otherVector) {
+    for (int i = 0; i < vector.length; i++) {
+      if (vector[i] > otherVector[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
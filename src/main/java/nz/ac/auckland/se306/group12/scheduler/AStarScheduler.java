@@ -1,16 +1,25 @@
 package nz.ac.auckland.se306.group12.scheduler;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.AccessLevel;
 import lombok.Getter;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.Schedule.Dominance;
 import nz.ac.auckland.se306.group12.models.ScheduleWithAnEmptyProcessor;
 import nz.ac.auckland.se306.group12.models.ScheduledTask;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
 import nz.ac.auckland.se306.group12.models.Task;
 import nz.ac.auckland.se306.group12.models.datastructures.MaxSizeHashMap;
+import nz.ac.auckland.se306.group12.models.datastructures.ParetoFrontierMap;
 
 @Getter
 public class AStarScheduler implements Scheduler {
@@ -21,43 +30,93 @@ public class AStarScheduler implements Scheduler {
    * have a lot more scheduled stored in priority queue, and so we don't want to run out of memory.
    */
   private static final int MAX_CLOSED_SET_SIZE = 1 << 17; // 131072
+  /**
+   * How many partial schedules to search in between publishing snapshots of the search.
+   */
+  private static final int SNAPSHOT_INTERVAL = 1024;
 
   private long searchedCount;
   private long prunedCount;
-  private SchedulerStatus status = SchedulerStatus.IDLE;
+  private volatile SchedulerStatus status = SchedulerStatus.IDLE;
+  private volatile int lowerBound = 0;
+  private volatile SearchSnapshot snapshot = SearchSnapshot.IDLE;
+  /**
+   * The priority queue is only ever accessed by the search thread, as it isn't thread-safe.
+   */
+  @Getter(AccessLevel.NONE)
   private Queue<Schedule> priorityQueue = new PriorityQueue<>();
+  /**
+   * A complete schedule offered from outside the search, if any. Partial schedules that can't beat
+   * it aren't added to the priority queue, and if the queue runs dry this is the optimal schedule.
+   */
+  @Getter(AccessLevel.NONE)
+  private final AtomicReference<Schedule> incumbent = new AtomicReference<>();
+  @Getter(AccessLevel.NONE)
+  private final StopCondition stopCondition = new StopCondition();
+  /**
+   * The head of the priority queue when the last snapshot was published, or the incumbent if the
+   * queue was empty.
+   */
+  @Getter(AccessLevel.NONE)
+  private volatile Schedule bestSchedule;
 
   /**
    * The current best schedule is the first schedule in the priority queue as it is ordered by
-   * lowest estimated makespan.
+   * lowest estimated makespan. As the priority queue can't be read from another thread, this is the
+   * head of the queue as of the latest snapshot.
    *
    * @inheritDoc
    */
   @Override
   public Schedule getBestSchedule() {
-    return this.priorityQueue.peek();
+    return this.bestSchedule;
   }
 
   /**
    * @inheritDoc
    */
   @Override
-  public Schedule schedule(Graph taskGraph, int processorCount) {
+  public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.stopCondition.start(timeLimit);
     this.resetScheduler();
+    if (initialIncumbent != null) {
+      this.offerIncumbent(initialIncumbent);
+    }
     this.status = SchedulerStatus.SCHEDULING;
+    int effectiveProcessorCount = taskGraph.getEffectiveProcessorCount(processorCount);
 
     Map<String, Boolean> closed = new MaxSizeHashMap<>(
         MAX_CLOSED_SET_SIZE, Scheduler.INITIAL_CLOSED_SET_CAPACITY);
+    ParetoFrontierMap<String> dominanceTable = new ParetoFrontierMap<>(
+        Scheduler.MAX_DOMINANCE_KEY_COUNT, Scheduler.INITIAL_CLOSED_SET_CAPACITY,
+        Scheduler.MAX_DOMINANCE_FRONTIER_SIZE);
+
+    Schedule initialSchedule = new ScheduleWithAnEmptyProcessor(taskGraph, effectiveProcessorCount);
+    this.lowerBound = initialSchedule.getEstimatedMakespan();
+    this.priorityQueue.add(initialSchedule);
+    this.publishSnapshot();
 
-    this.priorityQueue.add(new ScheduleWithAnEmptyProcessor(taskGraph, processorCount));
+    int alapMakespan = Integer.MAX_VALUE;
+    int[] alapStartTimes = null;
 
-    while (!this.priorityQueue.isEmpty()) {
+    while (!this.priorityQueue.isEmpty() && !this.stopCondition.shouldStop()) {
       Schedule currentSchedule = this.priorityQueue.peek();
+      int incumbentMakespan = this.getIncumbentMakespan();
+      if (incumbentMakespan != alapMakespan) {
+        alapMakespan = incumbentMakespan;
+        alapStartTimes = taskGraph.getAlapStartTimes(alapMakespan);
+      }
       this.searchedCount++;
+      if (this.searchedCount % SNAPSHOT_INTERVAL == 0) {
+        this.publishSnapshot();
+      }
 
       // Check if current schedule is complete. The first complete schedule is the best schedule
       if (currentSchedule.getScheduledTaskCount() == taskGraph.taskCount()) {
+        this.incumbent.set(currentSchedule);
         this.status = SchedulerStatus.SCHEDULED;
+        this.publishSnapshot();
         return currentSchedule;
       }
 
@@ -65,31 +124,113 @@ public class AStarScheduler implements Scheduler {
       this.priorityQueue.poll();
 
       // Check to find if any tasks can be scheduled and schedule them
-      for (Task task : currentSchedule.getReadyTasks()) {
+      boolean[] interchangeableProcessors = currentSchedule.getInterchangeableProcessors(taskGraph);
+      for (Task task : currentSchedule.getExpandableTasks()) {
         int[] latestStartTimes = currentSchedule.getLatestStartTimesOf(task);
         for (int i = 0; i < currentSchedule.getAllocableProcessorCount(); i++) {
+          if (interchangeableProcessors[i]) {
+            this.prunedCount++;
+            continue;
+          }
+
           // Ensure that it either schedules by latest time or after the last task on the processor
           int startTime = Math.max(latestStartTimes[i], currentSchedule.getProcessorEndTimes()[i]);
+          if (currentSchedule.isRedundantTransposition(task, i, startTime)) {
+            this.prunedCount++;
+            continue;
+          }
+
           int endTime = startTime + task.getWeight();
           ScheduledTask newScheduledTask = new ScheduledTask(startTime, endTime, i);
           Schedule newSchedule = currentSchedule.extendWithTask(newScheduledTask, task);
-          String stringHash = newSchedule.generateUniqueString();
+          if (newSchedule.getEstimatedMakespan() >= incumbentMakespan) {
+            this.prunedCount++;
+            continue;
+          }
 
+          String stringHash = newSchedule.generateUniqueString();
           if (closed.containsKey(stringHash)) {
             this.prunedCount++;
             continue;
           }
+          closed.put(stringHash, Boolean.TRUE);
+
+          if (newSchedule.isPastAlapStartTimes(alapStartTimes, taskGraph)) {
+            this.prunedCount++;
+            continue;
+          }
+
+          // Prune the schedule if one of the same tasks that finishes no later is already queued
+          Dominance dominance = newSchedule.generateDominance(taskGraph);
+          if (!dominanceTable.addIfNotDominated(dominance.key(), dominance.vector())) {
+            this.prunedCount++;
+            continue;
+          }
 
           this.priorityQueue.add(newSchedule);
-          closed.put(stringHash, Boolean.TRUE);
         }
       }
     }
 
+    // Either every partial schedule was pruned by the incumbent, which means that it's optimal, or
+    // the search was stopped and the optimal schedule can't beat the head of the priority queue
     this.status = SchedulerStatus.SCHEDULED;
+    this.publishSnapshot();
+    Schedule incumbentSchedule = this.incumbent.get();
+    if (incumbentSchedule != null || !this.priorityQueue.isEmpty()) {
+      return incumbentSchedule;
+    }
     throw new IllegalStateException("No optimal schedule found");
   }
 
+  /**
+   * Publishes a new snapshot of the search's progress, along with the head of the priority queue.
+   * The lower bound is updated at the same time: no schedule can beat the head of the queue unless
+   * it was pruned, which only happens to schedules that can't beat the incumbent.
+   */
+  private void publishSnapshot() {
+    Schedule headSchedule = this.priorityQueue.peek();
+    Schedule incumbentSchedule = this.incumbent.get();
+    int incumbentMakespan = incumbentSchedule == null
+        ? Integer.MAX_VALUE
+        : incumbentSchedule.getLatestEndTime();
+    this.lowerBound = headSchedule == null
+        ? incumbentMakespan
+        : Math.min(incumbentMakespan, headSchedule.getEstimatedMakespan());
+    this.bestSchedule = headSchedule == null ? incumbentSchedule : headSchedule;
+    this.snapshot = new SearchSnapshot(this.status, this.searchedCount, this.prunedCount,
+        incumbentSchedule, this.bestSchedule, this.lowerBound,
+        List.of(new WorkerSnapshot(this.searchedCount, this.priorityQueue.size())), Instant.now());
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public void stop() {
+    this.stopCondition.requestStop();
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public synchronized boolean offerIncumbent(Schedule schedule) {
+    if (schedule.getLatestEndTime() < this.getIncumbentMakespan()) {
+      this.incumbent.set(schedule);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return The makespan of the incumbent, or {@link Integer#MAX_VALUE} if there isn't one
+   */
+  private int getIncumbentMakespan() {
+    Schedule incumbentSchedule = this.incumbent.get();
+    return incumbentSchedule == null ? Integer.MAX_VALUE : incumbentSchedule.getLatestEndTime();
+  }
+
   /**
    * Resets the scheduler to its initial state so that it can be used to schedule a new graph.
    */
@@ -97,6 +238,8 @@ public class AStarScheduler implements Scheduler {
     this.searchedCount = 0;
     this.prunedCount = 0;
     this.priorityQueue.clear();
+    this.incumbent.set(null);
+    this.bestSchedule = null;
   }
 
   @Override
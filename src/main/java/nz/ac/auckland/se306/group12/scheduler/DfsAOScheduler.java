@@ -1,79 +1,215 @@
 package nz.ac.auckland.se306.group12.scheduler;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.Getter;
 import nz.ac.auckland.se306.group12.models.AOSchedule;
 import nz.ac.auckland.se306.group12.models.Allocation;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
-import nz.ac.auckland.se306.group12.models.ScheduledTask;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
 import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.models.datastructures.IntStack;
 
 public class DfsAOScheduler implements Scheduler {
 
   private static final String HUMAN_READABLE_NAME = "DFS branch-and-bound (AO state space)";
-  private int currentMinMakespan = Integer.MAX_VALUE;
+  /**
+   * How many partial schedules to search in between checks of whether the search should stop, as
+   * checking the time limit is relatively expensive compared to searching a partial schedule. A
+   * snapshot of the search is published at the same time.
+   */
+  private static final int STOP_CHECK_INTERVAL = 1024;
+  /**
+   * While the search itself is single-threaded, the bound and best schedule are atomic so that
+   * incumbents can be offered from another thread.
+   */
+  private final AtomicInteger currentMinMakespan = new AtomicInteger(Integer.MAX_VALUE);
+  private final AtomicReference<Schedule> bestSchedule = new AtomicReference<>();
+  /**
+   * The relative optimality gap that is allowed, which is 0 to find an optimal schedule.
+   *
+   * @see Scheduler#getPruningBound(int, double)
+   */
+  private final double epsilon;
+  private final StopCondition stopCondition = new StopCondition();
 
   @Getter
   private long searchedCount = 0;
   @Getter
   private long prunedCount = 0;
   @Getter
-  private SchedulerStatus status = SchedulerStatus.IDLE;
+  private volatile SchedulerStatus status = SchedulerStatus.IDLE;
   @Getter
-  private Schedule bestSchedule = null;
-  private AOSchedule bestAOSchedule = null;
+  private volatile int lowerBound = 0;
+  @Getter
+  private volatile SearchSnapshot snapshot = SearchSnapshot.IDLE;
+
+  /**
+   * Creates a new {@link DfsAOScheduler} which finds an optimal schedule.
+   */
+  public DfsAOScheduler() {
+    this(0);
+  }
+
+  /**
+   * Creates a new {@link DfsAOScheduler} which finds a schedule within a factor of (1 + epsilon) of
+   * optimal.
+   *
+   * @param epsilon The relative optimality gap that is allowed, which is 0 to find an optimal
+   *                schedule
+   */
+  public DfsAOScheduler(double epsilon) {
+    this.epsilon = epsilon;
+  }
 
   /**
    * @inheritDoc
    */
   @Override
-  public Schedule schedule(Graph taskGraph, int processorCount) {
+  public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.stopCondition.start(timeLimit);
+    this.resetScheduler();
+    if (initialIncumbent != null) {
+      this.offerIncumbent(initialIncumbent);
+    }
     this.status = SchedulerStatus.SCHEDULING;
     Queue<Allocation> stack = Collections.asLifoQueue(new ArrayDeque<>());
-    stack.add(new Allocation(taskGraph, processorCount));
+    Allocation initialAllocation =
+        new Allocation(taskGraph, taskGraph.getEffectiveProcessorCount(processorCount));
+    this.lowerBound = initialAllocation.getAllocationHeuristic();
+    stack.add(initialAllocation);
+    Queue<AOSchedule> orderingQueue = Collections.asLifoQueue(new ArrayDeque<>());
+    IntStack propagationStack = new IntStack(taskGraph.taskCount());
+    Schedule guideSchedule = null;
+    int[] guideProcessors = null;
+    this.publishSnapshot(stack.size());
 
-    while (!stack.isEmpty()) {
+    while (!stack.isEmpty() && !this.stopCondition.shouldStop()) {
       Allocation currentAllocation = stack.remove();
 
       // Prune if current allocation is worse than current best schedule
       // Later change this to the allocation heuristic check
-      if (currentAllocation.getAllocationHeuristic() >= this.currentMinMakespan) {
+      if (currentAllocation.getAllocationHeuristic() >= this.getPruningBound()) {
         // pruned count here is pruning allocations which is technically different from pruning branches
         continue;
       }
       // Same for searching here
 
       if (currentAllocation.isComplete()) {
-        this.order(currentAllocation);
+        if (!this.order(currentAllocation, orderingQueue, propagationStack)) {
+          break;
+        }
         continue;
       }
-      currentAllocation.extendAllocation(stack);
+      // Explore the incumbent's allocation first, as better schedules are likely to be nearby
+      Schedule incumbent = this.bestSchedule.get();
+      if (incumbent != guideSchedule) {
+        guideSchedule = incumbent;
+        guideProcessors = currentAllocation.getGuideProcessors(incumbent);
+      }
+      currentAllocation.extendAllocation(stack, guideProcessors);
     }
 
+    this.lowerBound = this.computeLowerBound(stack, orderingQueue);
     this.status = SchedulerStatus.SCHEDULED;
-    return this.bestAOSchedule.asSchedule();
+    this.publishSnapshot(stack.size() + orderingQueue.size());
+    return this.bestSchedule.get();
+  }
+
+  /**
+   * Publishes a new snapshot of the search's progress.
+   *
+   * @param queuedCount The number of allocations or partial schedules left on the stack that's
+   *                    currently being searched
+   */
+  private void publishSnapshot(int queuedCount) {
+    Schedule incumbent = this.bestSchedule.get();
+    this.snapshot = new SearchSnapshot(this.status, this.searchedCount, this.prunedCount,
+        incumbent, incumbent, this.lowerBound,
+        List.of(new WorkerSnapshot(this.searchedCount, queuedCount)), Instant.now());
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public void stop() {
+    this.stopCondition.requestStop();
+  }
+
+  /**
+   * Computes the lower bound on the optimal makespan once the search has finished. Every
+   * allocation or partial schedule that was pruned couldn't have led to a makespan below the
+   * pruning bound, so the optimal makespan is either at least that or could only be found from one
+   * of the allocations or partial schedules that were left if the search was stopped.
+   *
+   * @param stack         The allocations that are left to search
+   * @param orderingQueue The partial schedules of the last allocation that are left to search
+   * @return The lower bound on the optimal makespan
+   * @see Scheduler#getLowerBound()
+   */
+  private int computeLowerBound(Queue<Allocation> stack, Queue<AOSchedule> orderingQueue) {
+    int computedLowerBound = this.getPruningBound();
+    for (Allocation allocation : stack) {
+      computedLowerBound = Math.min(computedLowerBound, allocation.getAllocationHeuristic());
+    }
+    for (AOSchedule schedule : orderingQueue) {
+      computedLowerBound = Math.min(computedLowerBound, schedule.getEstimatedMakespan());
+    }
+    return computedLowerBound;
   }
 
   /**
    * Perfects the ordering of the tasks in an allocation. This will find all valid possible
    * schedules based on their processor allocations and dependences.
    *
-   * @param allocation The allocation to order
+   * @param allocation       The allocation to order
+   * @param queue            The empty stack of schedules to search from, which is reused for every
+   *                         allocation and is empty again once this returns, unless the search
+   *                         was stopped
+   * @param propagationStack The scratch stack used to propagate start times when extending a
+   *                         schedule
+   * @return {@code true} if all the orderings were searched, or {@code false} if the search was
+   * stopped, in which case the partial schedules left to search are still in the queue
    */
-  private void order(Allocation allocation) {
-    Queue<AOSchedule> queue = Collections.asLifoQueue(new ArrayDeque<>());
+  private boolean order(Allocation allocation, Queue<AOSchedule> queue,
+      IntStack propagationStack) {
 
     queue.add(new AOSchedule(allocation));
+    int alapPruningBound = Integer.MAX_VALUE;
+    int[] alapStartTimes = null;
+    int stopCheckCounter = 0;
 
     while (!queue.isEmpty()) {
+      stopCheckCounter++;
+      if (stopCheckCounter == STOP_CHECK_INTERVAL) {
+        stopCheckCounter = 0;
+        if (this.stopCondition.shouldStop()) {
+          return false;
+        }
+        this.publishSnapshot(queue.size());
+      }
+
       AOSchedule currentSchedule = queue.remove();
+      int pruningBound = this.getPruningBound();
+      if (pruningBound != alapPruningBound) {
+        alapPruningBound = pruningBound;
+        alapStartTimes = allocation.getTaskGraph().getAlapStartTimes(alapPruningBound);
+      }
 
-      // Prune if current schedule is worse than current best
-      if (currentSchedule.getEstimatedMakespan() >= this.currentMinMakespan) {
+      // Prune if current schedule is worse than current best, or if a task can't start in time
+      if (currentSchedule.getEstimatedMakespan() >= pruningBound
+          || currentSchedule.isPastAlapStartTimes(alapStartTimes)) {
         this.prunedCount++;
         continue;
       }
@@ -82,21 +218,67 @@ public class DfsAOScheduler implements Scheduler {
 
       // Check if current schedule is complete
       if (currentSchedule.getScheduledTaskCount() == allocation.getTaskGraph().taskCount()) {
-        this.currentMinMakespan = currentSchedule.getLatestEndTime();
-        this.bestAOSchedule = currentSchedule;
+        this.updateMinMakespanAndSchedule(currentSchedule.asSchedule());
         continue;
       }
 
       // Check to find if any tasks can be scheduled and schedule any valid schedules
       for (Task task : currentSchedule.getReadyTasks()) {
-        ScheduledTask newScheduledTask = currentSchedule.extendWithTask(task);
-        AOSchedule newSchedule = currentSchedule.extendWithTask(newScheduledTask, task);
+        AOSchedule newSchedule = currentSchedule.extendWithTask(task, propagationStack);
         if (newSchedule != null) {
           queue.add(newSchedule);
         }
       }
     }
 
+    return true;
+  }
+
+  /**
+   * @return The bound to prune against for the current best makespan
+   * @see Scheduler#getPruningBound(int, double)
+   */
+  private int getPruningBound() {
+    return Scheduler.getPruningBound(this.currentMinMakespan.get(), this.epsilon);
+  }
+
+  /**
+   * Updates the best schedule and makespan bound if the given schedule is an improvement.
+   *
+   * @param schedule The complete schedule
+   * @return {@code true} if the schedule became the new best schedule, {@code false} otherwise
+   */
+  private synchronized boolean updateMinMakespanAndSchedule(Schedule schedule) {
+    int makespan = schedule.getLatestEndTime();
+    if (makespan >= this.currentMinMakespan.get()) {
+      return false;
+    }
+    this.currentMinMakespan.set(makespan);
+    this.bestSchedule.set(schedule);
+    return true;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public boolean offerIncumbent(Schedule schedule) {
+    return this.updateMinMakespanAndSchedule(schedule);
+  }
+
+  /**
+   * Resets the scheduler to its initial state so that it can be used to schedule a new graph.
+   */
+  private void resetScheduler() {
+    this.searchedCount = 0;
+    this.prunedCount = 0;
+    this.bestSchedule.set(null);
+    this.currentMinMakespan.set(Integer.MAX_VALUE);
+  }
+
+  @Override
+  public Schedule getBestSchedule() {
+    return this.bestSchedule.get();
   }
 
   @Override
@@ -1,11 +1,14 @@
 package nz.ac.auckland.se306.group12.scheduler;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -13,11 +16,15 @@ import lombok.Getter;
 import nz.ac.auckland.se306.group12.models.DfsWorker;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.Schedule.Dominance;
 import nz.ac.auckland.se306.group12.models.ScheduleWithAnEmptyProcessor;
 import nz.ac.auckland.se306.group12.models.ScheduledTask;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
 import nz.ac.auckland.se306.group12.models.Task;
 import nz.ac.auckland.se306.group12.models.datastructures.MaxSizeHashMap;
+import nz.ac.auckland.se306.group12.models.datastructures.ParetoFrontierMap;
 
 public class DfsScheduler implements Scheduler {
 
@@ -29,24 +36,39 @@ public class DfsScheduler implements Scheduler {
    */
   private static final int MAX_CLOSED_SET_SIZE = 1 << 18; // 262144
   private final int workerCount;
+  /**
+   * The relative optimality gap that is allowed, which is 0 to find an optimal schedule.
+   *
+   * @see Scheduler#getPruningBound(int, double)
+   */
+  private final double epsilon;
   private AtomicReference<Schedule> bestSchedule = new AtomicReference<>();
   private AtomicInteger currentMinMakespan = new AtomicInteger(Integer.MAX_VALUE);
   private AtomicLong searchedCount = new AtomicLong(0);
   private AtomicLong prunedCount = new AtomicLong(0);
   private AtomicInteger idleWorkers = new AtomicInteger(0);
-  private List<DfsWorker> workers = new ArrayList<>();
+  private List<DfsWorker<Schedule>> workers = new ArrayList<>();
   private List<Thread> threads = new ArrayList<>();
   private Random random = new Random();
   private int syncThreshold = 1024;
+  private final StopCondition stopCondition = new StopCondition();
+  /**
+   * Whether a worker is currently publishing a snapshot, so that only one does at a time.
+   */
+  private final AtomicBoolean isPublishing = new AtomicBoolean(false);
 
   @Getter
-  private SchedulerStatus status = SchedulerStatus.IDLE;
+  private volatile SchedulerStatus status = SchedulerStatus.IDLE;
+  @Getter
+  private volatile int lowerBound = 0;
+  @Getter
+  private volatile SearchSnapshot snapshot = SearchSnapshot.IDLE;
 
   /**
    * Creates a new single-threaded {@link DfsScheduler}.
    */
   public DfsScheduler() {
-    this.workerCount = 1;
+    this(1);
   }
 
   /**
@@ -55,7 +77,20 @@ public class DfsScheduler implements Scheduler {
    * @param workerCount The number of threads to run the scheduler with
    */
   public DfsScheduler(int workerCount) {
+    this(workerCount, 0);
+  }
+
+  /**
+   * Creates a new {@link DfsScheduler} with the specified number of threads (Or workers) which
+   * finds a schedule within a factor of (1 + epsilon) of optimal.
+   *
+   * @param workerCount The number of threads to run the scheduler with
+   * @param epsilon     The relative optimality gap that is allowed, which is 0 to find an optimal
+   *                    schedule
+   */
+  public DfsScheduler(int workerCount, double epsilon) {
     this.workerCount = workerCount;
+    this.epsilon = epsilon;
   }
 
   @Override
@@ -77,19 +112,26 @@ public class DfsScheduler implements Scheduler {
    * @inheritDoc
    */
   @Override
-  public Schedule schedule(Graph taskGraph, int processorCount) {
+  public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.stopCondition.start(timeLimit);
     this.resetScheduler();
+    if (initialIncumbent != null) {
+      this.offerIncumbent(initialIncumbent);
+    }
     this.status = SchedulerStatus.SCHEDULING;
+    int effectiveProcessorCount = taskGraph.getEffectiveProcessorCount(processorCount);
 
-    DfsWorker initWorker = new DfsWorker();
-    Schedule initWork = new ScheduleWithAnEmptyProcessor(taskGraph, processorCount);
+    DfsWorker<Schedule> initWorker = new DfsWorker<>();
+    Schedule initWork = new ScheduleWithAnEmptyProcessor(taskGraph, effectiveProcessorCount);
+    this.lowerBound = initWork.getEstimatedMakespan();
     initWorker.give(initWork);
     this.workers.add(initWorker);
 
-    Queue<Schedule> initialStates = this.aStarInitialStates(taskGraph, processorCount);
+    Queue<Schedule> initialStates = this.aStarInitialStates(taskGraph, effectiveProcessorCount);
 
     for (int i = 1; i < this.workerCount; i++) {
-      DfsWorker worker = new DfsWorker();
+      DfsWorker<Schedule> worker = new DfsWorker<>();
       Schedule work = initialStates.poll();
       if (work != null) {
         worker.give(work);
@@ -97,21 +139,70 @@ public class DfsScheduler implements Scheduler {
       this.workers.add(worker);
     }
 
-    for (DfsWorker dfsWorker : this.workers) {
+    this.publishSnapshot();
+    for (DfsWorker<Schedule> dfsWorker : this.workers) {
       Thread thread = new Thread(() -> this.branchAndBound(taskGraph, dfsWorker));
       this.threads.add(thread);
       thread.start();
     }
 
+    this.stopCondition.join(this.threads);
+    this.lowerBound = this.computeLowerBound();
+    this.status = SchedulerStatus.SCHEDULED;
+    this.publishSnapshot();
+    return this.bestSchedule.get();
+  }
+
+  /**
+   * Publishes a new snapshot of the search's progress. This is done by each worker whenever it
+   * synchronises with the global state, so the search never has to wait on anything reading it.
+   * Only one worker publishes at a time, and any other worker that tries to in the meantime skips
+   * it instead of waiting, so an older snapshot can never replace a newer one. The snapshot is
+   * built only from counts the workers have already published, so no worker's stack is locked.
+   */
+  private void publishSnapshot() {
+    if (!this.isPublishing.compareAndSet(false, true)) {
+      return;
+    }
     try {
-      for (Thread thread : this.threads) {
-        thread.join();
+      List<WorkerSnapshot> workerSnapshots = new ArrayList<>(this.workers.size());
+      for (DfsWorker<Schedule> worker : this.workers) {
+        workerSnapshots.add(worker.toSnapshot());
       }
-    } catch (InterruptedException e) {
-      e.printStackTrace();
+      Schedule incumbent = this.bestSchedule.get();
+      this.snapshot = new SearchSnapshot(this.status, this.searchedCount.get(),
+          this.prunedCount.get(), incumbent, incumbent, this.lowerBound, workerSnapshots,
+          Instant.now());
+    } finally {
+      this.isPublishing.set(false);
     }
-    this.status = SchedulerStatus.SCHEDULED;
-    return this.bestSchedule.get();
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public void stop() {
+    this.stopCondition.requestStop();
+  }
+
+  /**
+   * Computes the lower bound on the optimal makespan once all the workers have finished. Every
+   * partial schedule that was pruned couldn't have led to a makespan below the pruning bound, so
+   * the optimal makespan is either at least that or could only be found from one of the partial
+   * schedules left on the workers' stacks if they were stopped.
+   *
+   * @return The lower bound on the optimal makespan
+   * @see Scheduler#getLowerBound()
+   */
+  private int computeLowerBound() {
+    int computedLowerBound = Scheduler.getPruningBound(this.currentMinMakespan.get(), this.epsilon);
+    for (DfsWorker<Schedule> worker : this.workers) {
+      for (Schedule schedule : worker.getStack()) {
+        computedLowerBound = Math.min(computedLowerBound, schedule.getEstimatedMakespan());
+      }
+    }
+    return computedLowerBound;
   }
 
   /**
@@ -120,18 +211,24 @@ public class DfsScheduler implements Scheduler {
    * @param taskGraph graph to perform branch and bound on
    * @param worker    Worker who contains to a thread that processes the branch and bound.
    */
-  private void branchAndBound(Graph taskGraph, DfsWorker worker) {
+  private void branchAndBound(Graph taskGraph, DfsWorker<Schedule> worker) {
     int syncCounter = 0;
     int localMinMakespan = this.currentMinMakespan.get();
+    int pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+    int[] alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
     long localSearchCount = 0;
     long localPruneCount = 0;
     Map<String, Boolean> closed = new MaxSizeHashMap<>(
         MAX_CLOSED_SET_SIZE / this.workerCount,
         Scheduler.INITIAL_CLOSED_SET_CAPACITY / this.workerCount);
+    ParetoFrontierMap<String> dominanceTable = new ParetoFrontierMap<>(
+        Scheduler.MAX_DOMINANCE_KEY_COUNT / this.workerCount,
+        Scheduler.INITIAL_CLOSED_SET_CAPACITY / this.workerCount,
+        Scheduler.MAX_DOMINANCE_FRONTIER_SIZE);
 
     boolean hasWork = true;
 
-    while (this.hasRunningWorker()) {
+    while (this.hasRunningWorker() && !this.stopCondition.shouldStop()) {
 
       while (hasWork) {
         Schedule currentSchedule = worker.steal();
@@ -143,16 +240,27 @@ public class DfsScheduler implements Scheduler {
         syncCounter++;
 
         if (syncCounter == this.syncThreshold) {
-          localMinMakespan = this.currentMinMakespan.get();
-          this.prunedCount.getAndAdd(localPruneCount);
-          this.searchedCount.getAndAdd(localSearchCount);
+          if (this.stopCondition.shouldStop()) {
+            // Leave the schedule on the stack so that it's counted towards the lower bound
+            worker.give(currentSchedule);
+            this.syncCounts(worker, localSearchCount, localPruneCount);
+            return;
+          }
+          int globalMinMakespan = this.currentMinMakespan.get();
+          if (globalMinMakespan != localMinMakespan) {
+            localMinMakespan = globalMinMakespan;
+            pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+            alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
+          }
+          this.syncCounts(worker, localSearchCount, localPruneCount);
           localSearchCount = 0;
           localPruneCount = 0;
           syncCounter = 0;
+          this.publishSnapshot();
         }
 
         // Prune if current schedule is worse than current best
-        if (currentSchedule.getEstimatedMakespan() >= localMinMakespan) {
+        if (currentSchedule.getEstimatedMakespan() >= pruningBound) {
           localPruneCount++;
           continue;
         }
@@ -162,20 +270,37 @@ public class DfsScheduler implements Scheduler {
         // Check if current schedule is complete
         if (currentSchedule.getScheduledTaskCount() == taskGraph.taskCount()) {
           localMinMakespan = currentSchedule.getLatestEndTime();
+          pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+          alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
           this.updateGlobalMinMakespanAndSchedule(currentSchedule);
           continue;
         }
 
         // Check to find if any tasks can be scheduled and schedule them
-        for (Task task : currentSchedule.getReadyTasks()) {
+        boolean[] interchangeableProcessors =
+            currentSchedule.getInterchangeableProcessors(taskGraph);
+        for (Task task : currentSchedule.getExpandableTasks()) {
           int[] latestStartTimes = currentSchedule.getLatestStartTimesOf(task);
           int allocableCount = currentSchedule.getAllocableProcessorCount();
 
           for (int i = 0; i < allocableCount; i++) {
+            if (interchangeableProcessors[i]) {
+              localPruneCount++;
+              continue;
+            }
+
+            int startTime = Math.max(latestStartTimes[i],
+                currentSchedule.getProcessorEndTimes()[i]);
+            if (currentSchedule.isRedundantTransposition(task, i, startTime)) {
+              localPruneCount++;
+              continue;
+            }
+
             Schedule newSchedule = this.scheduleNextTask(task, latestStartTimes[i],
                 currentSchedule.getProcessorEndTimes()[i], i, currentSchedule);
 
-            if (this.scheduleIsPruned(newSchedule, localMinMakespan, closed)) {
+            if (this.scheduleIsPruned(newSchedule, pruningBound, alapStartTimes, closed,
+                dominanceTable, taskGraph)) {
               localPruneCount++;
               continue;
             }
@@ -187,6 +312,24 @@ public class DfsScheduler implements Scheduler {
 
       hasWork = this.takeWorkFromRandomWorker(worker);
     }
+    this.syncCounts(worker, localSearchCount, localPruneCount);
+  }
+
+  /**
+   * Adds a worker's counts since it last synchronised to the global counts, and records them on the
+   * worker for its snapshots. This must only be called by the worker's own thread.
+   *
+   * @param worker             The worker whose counts to add
+   * @param newlySearchedCount The number of partial schedules the worker has searched since it last
+   *                           synchronised
+   * @param newlyPrunedCount   The number of partial schedules the worker has pruned since it last
+   *                           synchronised
+   */
+  private void syncCounts(DfsWorker<Schedule> worker, long newlySearchedCount,
+      long newlyPrunedCount) {
+    this.prunedCount.getAndAdd(newlyPrunedCount);
+    this.searchedCount.getAndAdd(newlySearchedCount);
+    worker.sync(newlySearchedCount, worker.getStack().size());
   }
 
   /**
@@ -214,9 +357,14 @@ public class DfsScheduler implements Scheduler {
       }
 
       // Check to find if any tasks can be scheduled and schedule them
-      for (Task task : currentSchedule.getReadyTasks()) {
+      boolean[] interchangeableProcessors = currentSchedule.getInterchangeableProcessors(taskGraph);
+      for (Task task : currentSchedule.getExpandableTasks()) {
         int[] latestStartTimes = currentSchedule.getLatestStartTimesOf(task);
         for (int i = 0; i < currentSchedule.getAllocableProcessorCount(); i++) {
+          if (interchangeableProcessors[i]) {
+            continue;
+          }
+
           // Ensure that it either schedules by latest time or after the last task on the processor
           int startTime = Math.max(latestStartTimes[i], currentSchedule.getProcessorEndTimes()[i]);
           int endTime = startTime + task.getWeight();
@@ -244,11 +392,11 @@ public class DfsScheduler implements Scheduler {
    * @param worker that is idle, trying to steal work from another
    * @return {@code true} if the steal was successful, {@code false} otherwise
    */
-  private boolean takeWorkFromRandomWorker(DfsWorker worker) {
+  private boolean takeWorkFromRandomWorker(DfsWorker<Schedule> worker) {
     // Randomly choose a worker to steal from. This attempts to evenly distribute the workers being stolen from
     for (int attempt = 0; attempt < 3; attempt++) {
       int index = this.random.nextInt(this.workerCount);
-      DfsWorker otherWorker = this.workers.get(index);
+      DfsWorker<Schedule> otherWorker = this.workers.get(index);
 
       // We can't steal from ourselves
       if (otherWorker == worker) {
@@ -278,13 +426,26 @@ public class DfsScheduler implements Scheduler {
    * Updates the local schedule with the global concurrent schedule, as well as the makespan.
    *
    * @param currentSchedule schedule on the local thread that will be compared.
+   * @return {@code true} if the schedule became the new best schedule, {@code false} otherwise
    */
-  private synchronized void updateGlobalMinMakespanAndSchedule(Schedule currentSchedule) {
+  private synchronized boolean updateGlobalMinMakespanAndSchedule(Schedule currentSchedule) {
     int localMinMakespan = currentSchedule.getLatestEndTime();
     if (localMinMakespan < this.currentMinMakespan.get()) {
       this.currentMinMakespan.set(localMinMakespan);
       this.bestSchedule.set(currentSchedule);
+      return true;
     }
+    return false;
+  }
+
+  /**
+   * Workers pick up the new makespan bound the next time they synchronise with the global state.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public boolean offerIncumbent(Schedule schedule) {
+    return this.updateGlobalMinMakespanAndSchedule(schedule);
   }
 
   /**
@@ -309,16 +470,23 @@ public class DfsScheduler implements Scheduler {
 
 
   /**
-   * Checks if a schedule should be pruned based on its estimated makespan and whether it exists in
-   * the closed set to avoid duplicate evaluations.
+   * Checks if a schedule should be pruned based on its estimated makespan, whether it exists in
+   * the closed set to avoid duplicate evaluations, whether a task can no longer start by its ALAP
+   * start time and whether it's dominated by a schedule of the same tasks that has already been
+   * queued.
    *
-   * @param schedule         The schedule to be checked for pruning.
-   * @param localMinMakespan The local minimum makespan, used as a pruning threshold.
+   * @param schedule       The schedule to be checked for pruning.
+   * @param pruningBound   The bound on the estimated makespan, used as a pruning threshold.
+   * @param alapStartTimes The ALAP start times of each task for the pruning bound
+   * @param closed         The closed set of this worker
+   * @param dominanceTable The dominance table of this worker
+   * @param taskGraph      The task graph being scheduled
    * @return true if the schedule should was pruned, false otherwise.
+   * @see Scheduler#getPruningBound(int, double)
    */
-  private boolean scheduleIsPruned(Schedule schedule, int localMinMakespan,
-      Map<String, Boolean> closed) {
-    if (schedule.getEstimatedMakespan() >= localMinMakespan) {
+  private boolean scheduleIsPruned(Schedule schedule, int pruningBound, int[] alapStartTimes,
+      Map<String, Boolean> closed, ParetoFrontierMap<String> dominanceTable, Graph taskGraph) {
+    if (schedule.getEstimatedMakespan() >= pruningBound) {
       return true;
     }
 
@@ -331,7 +499,15 @@ public class DfsScheduler implements Scheduler {
     }
 
     closed.put(stringHash, Boolean.TRUE);
-    return false;
+
+    if (schedule.isPastAlapStartTimes(alapStartTimes, taskGraph)) {
+      return true;
+    }
+
+    // The schedule is only added to the dominance table if it isn't dominated, and so will be
+    // queued. This makes sure the schedule which dominates another is always explored.
+    Dominance dominance = schedule.generateDominance(taskGraph);
+    return !dominanceTable.addIfNotDominated(dominance.key(), dominance.vector());
   }
 
   /**
@@ -342,6 +518,9 @@ public class DfsScheduler implements Scheduler {
     this.prunedCount.set(0);
     this.bestSchedule.set(null);
     this.currentMinMakespan.set(Integer.MAX_VALUE);
+    this.idleWorkers.set(0);
+    this.workers.clear();
+    this.threads.clear();
   }
 
   @Override
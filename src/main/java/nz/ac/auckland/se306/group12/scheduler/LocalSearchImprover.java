@@ -0,0 +1,452 @@
+package nz.ac.auckland.se306.group12.scheduler;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import lombok.Getter;
+import nz.ac.auckland.se306.group12.models.Edge;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.models.datastructures.BitSet;
+
+/**
+ * A companion to an exact {@link Scheduler} which runs on its own thread and tries to improve the
+ * scheduler's incumbent (Its best complete schedule so far) using local search. Any improvement is
+ * handed back to the scheduler through {@link Scheduler#offerIncumbent(Schedule)}, which lowers the
+ * makespan bound the scheduler prunes against. The earlier a tight bound is known, the smaller the
+ * branch-and-bound tree becomes, so this is a good use of cores the scheduler itself can't use.
+ * <p>
+ * A schedule is represented by its processor allocation and an order in which to start the tasks.
+ * The neighbourhood consists of moving a single task to another processor and swapping the
+ * processors of two tasks. After every move the start times are recomputed from scratch, so every
+ * neighbour is a valid schedule. The search is a simple first-improvement hill climb; once it
+ * reaches a local optimum it waits for the scheduler to find a better incumbent to continue from.
+ * <p>
+ * Each improver only helps with a single run of the scheduler: the first one that starts after the
+ * improver was created. This means it can be started before or after the run starts, and that a
+ * scheduler that has been used before can be reused, as the improver waits for the scheduler to
+ * be reset for the new run before offering anything.
+ */
+public class LocalSearchImprover implements Runnable {
+
+  /**
+   * How long to wait between checks of the scheduler's status and best schedule when there is
+   * nothing left to improve.
+   */
+  private static final long POLL_INTERVAL_MILLIS = 50;
+
+  private final Graph taskGraph;
+  private final Scheduler scheduler;
+  private final int processorCount;
+  private final int taskCount;
+
+  /**
+   * The position of each task (By index) in a fixed topological order. Used to break ties between
+   * tasks with the same start time so that an order derived from start times is always a valid
+   * topological order, even when there are tasks with a weight of 0.
+   */
+  private final int[] topologicalPositions;
+
+  // Scratch buffers reused for every evaluation of a neighbouring schedule
+  private final int[] startTimes;
+  private final int[] processorEndTimes;
+
+  /**
+   * When the improver was created. The run of the scheduler it improves is the first one whose
+   * snapshots were taken after this.
+   */
+  private final Instant creationTime = Instant.now();
+  /**
+   * Whether the run of the scheduler this improver is improving has finished, after which the
+   * improver never offers anything again, even if the scheduler is started again.
+   */
+  private boolean isRunFinished = false;
+
+  @Getter
+  private long improvementCount = 0;
+
+  /**
+   * Creates a new {@link LocalSearchImprover} for the given scheduler. This does not start the
+   * improver, it should be run on its own thread alongside
+   * {@link Scheduler#schedule(Graph, int)}.
+   *
+   * @param taskGraph      The task graph being scheduled
+   * @param scheduler      The {@link Scheduler} whose incumbent should be improved
+   * @param processorCount The number of processors the graph is being scheduled on
+   */
+  public LocalSearchImprover(Graph taskGraph, Scheduler scheduler, int processorCount) {
+    this.taskGraph = taskGraph;
+    this.scheduler = scheduler;
+    this.processorCount = taskGraph.getEffectiveProcessorCount(processorCount);
+    this.taskCount = taskGraph.taskCount();
+    this.topologicalPositions = new int[this.taskCount];
+    this.startTimes = new int[this.taskCount];
+    this.processorEndTimes = new int[this.processorCount];
+
+    List<Task> topologicalOrder = new TopologicalSorter().getATopologicalOrder(taskGraph);
+    for (int position = 0; position < this.taskCount; position++) {
+      this.topologicalPositions[topologicalOrder.get(position).getIndex()] = position;
+    }
+  }
+
+  /**
+   * Waits for the scheduler's run to start, seeds it with a list schedule and then keeps improving
+   * the best known schedule until that run has finished. If the run has already finished, this
+   * returns straight away.
+   */
+  @Override
+  public void run() {
+    try {
+      // Schedulers only publish a snapshot of a new run once they have been reset for it, so an
+      // incumbent offered after this can't be wiped by the reset
+      SearchSnapshot snapshot = this.scheduler.getSnapshot();
+      while (snapshot.timestamp().isBefore(this.creationTime)
+          || snapshot.status() == SchedulerStatus.IDLE) {
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+        snapshot = this.scheduler.getSnapshot();
+      }
+      if (!this.isSchedulerRunning()) {
+        return;
+      }
+
+      int[] allocation = new int[this.taskCount];
+      int[] order = this.createListSchedule(allocation);
+      int makespan = this.evaluate(allocation, order);
+      this.scheduler.offerIncumbent(this.toSchedule(allocation, order));
+      Schedule lastSeenIncumbent = null;
+
+      while (this.isSchedulerRunning()) {
+        makespan = this.hillClimb(allocation, order, makespan);
+
+        // We've reached a local optimum, so wait until the scheduler finds something better
+        while (this.isSchedulerRunning()) {
+          Schedule incumbent = this.scheduler.getBestSchedule();
+          if (incumbent != lastSeenIncumbent && this.isComplete(incumbent)
+              && incumbent.getLatestEndTime() < makespan) {
+            lastSeenIncumbent = incumbent;
+            order = this.loadSchedule(incumbent.getScheduledTasks(), allocation);
+            makespan = this.evaluate(allocation, order);
+            break;
+          }
+          Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Creates the list schedule that the improver starts from, without improving it. This is a
+   * valid schedule that's very quick to find, which makes it a fallback for when the scheduler was
+   * stopped before it found one of its own. This shouldn't be called while the improver is running.
+   *
+   * @return The list schedule of the task graph
+   */
+  public Schedule getListSchedule() {
+    int[] allocation = new int[this.taskCount];
+    int[] order = this.createListSchedule(allocation);
+    return this.toSchedule(allocation, order);
+  }
+
+  /**
+   * Recomputes the start times of an existing complete schedule, keeping the processor of each task
+   * and the order the tasks start in. As start times are recomputed from scratch, the result is
+   * always a valid schedule of the task graph on this improver's processors, even if the schedule
+   * was made for a different number of processors. This shouldn't be called while the improver is
+   * running.
+   *
+   * @param schedule The complete schedule to re-time
+   * @return The re-timed schedule
+   * @see #retime(ScheduledTask[])
+   */
+  public Schedule retime(Schedule schedule) {
+    return this.retime(schedule.getScheduledTasks());
+  }
+
+  /**
+   * Recomputes the start times of the given placements of every task, keeping the processor of
+   * each task and the order the tasks start in. The placements don't need to be valid for the
+   * current weights or dependencies of the task graph (E.g. they can be from a schedule of an
+   * earlier version of the graph). Processors beyond the ones this improver schedules on are folded
+   * back onto them.
+   *
+   * @param placements The start time and processor of each task, by index
+   * @return The re-timed schedule
+   */
+  public Schedule retime(ScheduledTask[] placements) {
+    int[] allocation = new int[this.taskCount];
+    int[] order = this.loadSchedule(placements, allocation);
+    for (int taskIndex = 0; taskIndex < this.taskCount; taskIndex++) {
+      allocation[taskIndex] %= this.processorCount;
+    }
+    return this.toSchedule(allocation, order);
+  }
+
+  /**
+   * Repeatedly applies the first improving task move or task swap that it finds until there are no
+   * improving neighbours left, or the scheduler has finished. Every improvement is offered to the
+   * scheduler as soon as it's found.
+   *
+   * @param allocation The processor of each task, which is updated in place
+   * @param order      The order in which tasks are started, which is updated in place
+   * @param makespan   The makespan of the current allocation and order
+   * @return The makespan of the local optimum
+   */
+  private int hillClimb(int[] allocation, int[] order, int makespan) {
+    boolean improved = true;
+    while (improved && this.isSchedulerRunning()) {
+      improved = false;
+
+      // Moves: Reallocate a single task to a different processor
+      for (int taskIndex = 0; taskIndex < this.taskCount && !improved; taskIndex++) {
+        int originalProcessor = allocation[taskIndex];
+        for (int processor = 0; processor < this.processorCount; processor++) {
+          if (processor == originalProcessor) {
+            continue;
+          }
+          allocation[taskIndex] = processor;
+          int newMakespan = this.evaluate(allocation, order);
+          if (newMakespan < makespan) {
+            makespan = newMakespan;
+            improved = true;
+            break;
+          }
+        }
+        if (!improved) {
+          allocation[taskIndex] = originalProcessor;
+        }
+      }
+
+      // Swaps: Exchange the processors of two tasks
+      for (int first = 0; first < this.taskCount && !improved; first++) {
+        for (int second = first + 1; second < this.taskCount; second++) {
+          int firstProcessor = allocation[first];
+          int secondProcessor = allocation[second];
+          if (firstProcessor == secondProcessor) {
+            continue;
+          }
+          allocation[first] = secondProcessor;
+          allocation[second] = firstProcessor;
+          int newMakespan = this.evaluate(allocation, order);
+          if (newMakespan < makespan) {
+            makespan = newMakespan;
+            improved = true;
+            break;
+          }
+          allocation[first] = firstProcessor;
+          allocation[second] = secondProcessor;
+        }
+      }
+
+      if (improved) {
+        // Re-derive the order from the new start times so that later moves build on this schedule
+        this.evaluate(allocation, order);
+        this.sortByStartTime(order);
+        this.improvementCount++;
+        this.scheduler.offerIncumbent(this.toSchedule(allocation, order));
+      }
+    }
+    return makespan;
+  }
+
+  /**
+   * Creates a list schedule to use as the initial incumbent. Tasks are prioritised by their bottom
+   * level, including communication costs, and each is placed on the processor where it can start
+   * the earliest.
+   *
+   * @param allocation An array to store the processor each task is allocated to
+   * @return The order in which the tasks were scheduled
+   */
+  private int[] createListSchedule(int[] allocation) {
+    int[] bottomLevels = new int[this.taskCount];
+    Integer[] priorityOrder = new Integer[this.taskCount];
+    for (int taskIndex = 0; taskIndex < this.taskCount; taskIndex++) {
+      priorityOrder[taskIndex] = taskIndex;
+    }
+    // Reverse topological order, so that children are visited before their parents
+    Arrays.sort(priorityOrder,
+        Comparator.comparingInt((Integer taskIndex) -> this.topologicalPositions[taskIndex])
+            .reversed());
+    for (int taskIndex : priorityOrder) {
+      Task task = this.taskGraph.getTask(taskIndex);
+      int maxChildBottomLevel = 0;
+      for (Edge outEdge : task.getOutgoingEdges()) {
+        maxChildBottomLevel = Math.max(maxChildBottomLevel,
+            outEdge.getWeight() + bottomLevels[outEdge.getDestination().getIndex()]);
+      }
+      bottomLevels[taskIndex] = task.getWeight() + maxChildBottomLevel;
+    }
+
+    // A parent's bottom level is never lower than its child's, so breaking ties by topological
+    // position keeps this a valid topological order
+    Arrays.sort(priorityOrder,
+        Comparator.comparingInt((Integer taskIndex) -> -bottomLevels[taskIndex])
+            .thenComparingInt(taskIndex -> this.topologicalPositions[taskIndex]));
+
+    int[] order = new int[this.taskCount];
+    Arrays.fill(this.processorEndTimes, 0);
+    for (int position = 0; position < this.taskCount; position++) {
+      int taskIndex = priorityOrder[position];
+      Task task = this.taskGraph.getTask(taskIndex);
+      order[position] = taskIndex;
+
+      int bestStartTime = Integer.MAX_VALUE;
+      int bestProcessor = 0;
+      for (int processor = 0; processor < this.processorCount; processor++) {
+        allocation[taskIndex] = processor;
+        int startTime = this.getEarliestStartTime(task, allocation);
+        if (startTime < bestStartTime) {
+          bestStartTime = startTime;
+          bestProcessor = processor;
+        }
+      }
+
+      allocation[taskIndex] = bestProcessor;
+      this.startTimes[taskIndex] = bestStartTime;
+      this.processorEndTimes[allocation[taskIndex]] = bestStartTime + task.getWeight();
+    }
+    return order;
+  }
+
+  /**
+   * Loads the allocation and order of an existing complete schedule. The tasks are ordered by
+   * their start times, except that a task never comes before its parents, so the order is still
+   * topological if the start times don't respect the dependencies of the task graph.
+   *
+   * @param scheduledTasks The scheduled tasks of the complete schedule to load, by index
+   * @param allocation     An array to store the processor each task is allocated to
+   * @return The order in which the tasks start in the schedule
+   */
+  private int[] loadSchedule(ScheduledTask[] scheduledTasks, int[] allocation) {
+    for (int taskIndex = 0; taskIndex < this.taskCount; taskIndex++) {
+      allocation[taskIndex] = scheduledTasks[taskIndex].getProcessorIndex();
+      this.startTimes[taskIndex] = scheduledTasks[taskIndex].getStartTime();
+    }
+
+    List<Task> topologicalOrder = new TopologicalSorter().getPrioritisedTopologicalOrder(
+        this.taskGraph,
+        Comparator.comparingInt((Task task) -> this.startTimes[task.getIndex()])
+            .thenComparingInt(task -> this.topologicalPositions[task.getIndex()]));
+    int[] order = new int[this.taskCount];
+    for (int position = 0; position < this.taskCount; position++) {
+      order[position] = topologicalOrder.get(position).getIndex();
+    }
+    return order;
+  }
+
+  /**
+   * Sorts the order by the start times currently stored in {@link #startTimes}, breaking ties
+   * using the topological order.
+   *
+   * @param order The order to sort in place
+   */
+  private void sortByStartTime(int[] order) {
+    Integer[] boxedOrder = Arrays.stream(order).boxed().toArray(Integer[]::new);
+    Arrays.sort(boxedOrder,
+        Comparator.comparingInt((Integer taskIndex) -> this.startTimes[taskIndex])
+            .thenComparingInt(taskIndex -> this.topologicalPositions[taskIndex]));
+    for (int position = 0; position < order.length; position++) {
+      order[position] = boxedOrder[position];
+    }
+  }
+
+  /**
+   * Recomputes the start time of every task, given their allocation and the order in which they
+   * should be started. Each task starts as soon as its processor is free and the data from all of
+   * its parents has arrived. The start times are stored in {@link #startTimes}.
+   *
+   * @param allocation The processor of each task
+   * @param order      The order to start the tasks in, which must be a topological order
+   * @return The makespan of the resulting schedule
+   */
+  private int evaluate(int[] allocation, int[] order) {
+    Arrays.fill(this.processorEndTimes, 0);
+    int makespan = 0;
+    for (int taskIndex : order) {
+      Task task = this.taskGraph.getTask(taskIndex);
+      int startTime = this.getEarliestStartTime(task, allocation);
+      int endTime = startTime + task.getWeight();
+      this.startTimes[taskIndex] = startTime;
+      this.processorEndTimes[allocation[taskIndex]] = endTime;
+      makespan = Math.max(makespan, endTime);
+    }
+    return makespan;
+  }
+
+  /**
+   * Finds the earliest time that the given task can start on its allocated processor, based on the
+   * current {@link #processorEndTimes} and the {@link #startTimes} of its parents.
+   *
+   * @param task       The task to find the earliest start time of
+   * @param allocation The processor of each task
+   * @return The earliest start time of the task
+   */
+  private int getEarliestStartTime(Task task, int[] allocation) {
+    int processor = allocation[task.getIndex()];
+    int startTime = this.processorEndTimes[processor];
+    for (Edge inEdge : task.getIncomingEdges()) {
+      Task parent = inEdge.getSource();
+      int parentIndex = parent.getIndex();
+      int dataArrivalTime = this.startTimes[parentIndex] + parent.getWeight();
+      if (allocation[parentIndex] != processor) {
+        dataArrivalTime += inEdge.getWeight();
+      }
+      startTime = Math.max(startTime, dataArrivalTime);
+    }
+    return startTime;
+  }
+
+  /**
+   * Converts an allocation and order into a complete {@link Schedule}.
+   *
+   * @param allocation The processor of each task
+   * @param order      The order to start the tasks in
+   * @return The corresponding complete {@link Schedule}
+   */
+  private Schedule toSchedule(int[] allocation, int[] order) {
+    int makespan = this.evaluate(allocation, order);
+    ScheduledTask[] scheduledTasks = new ScheduledTask[this.taskCount];
+    for (int taskIndex = 0; taskIndex < this.taskCount; taskIndex++) {
+      int startTime = this.startTimes[taskIndex];
+      scheduledTasks[taskIndex] = new ScheduledTask(startTime,
+          startTime + this.taskGraph.getTask(taskIndex).getWeight(), allocation[taskIndex]);
+    }
+
+    int totalIdleTime = -this.taskGraph.getTotalTaskWeights();
+    for (int processorEndTime : this.processorEndTimes) {
+      totalIdleTime += processorEndTime;
+    }
+
+    return new Schedule(
+        scheduledTasks, Arrays.copyOf(this.processorEndTimes, this.processorCount), makespan,
+        this.taskCount, new BitSet<>(this.taskGraph), this.taskGraph.getTotalTaskWeights(),
+        makespan, totalIdleTime
+    );
+  }
+
+  /**
+   * @param schedule The schedule to check
+   * @return {@code true} if the schedule is not null and all tasks have been scheduled
+   */
+  private boolean isComplete(Schedule schedule) {
+    return schedule != null && schedule.getScheduledTaskCount() == this.taskCount;
+  }
+
+  /**
+   * @return {@code true} if the run of the scheduler this improver is improving is still going,
+   * {@code false} once it has finished
+   */
+  private boolean isSchedulerRunning() {
+    if (this.scheduler.getStatus() != SchedulerStatus.SCHEDULING) {
+      this.isRunFinished = true;
+    }
+    return !this.isRunFinished;
+  }
+
+}
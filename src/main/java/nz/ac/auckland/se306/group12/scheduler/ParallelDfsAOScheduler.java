@@ -1,122 +1,442 @@
 package nz.ac.auckland.se306.group12.scheduler;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.Getter;
 import nz.ac.auckland.se306.group12.models.AOSchedule;
 import nz.ac.auckland.se306.group12.models.Allocation;
+import nz.ac.auckland.se306.group12.models.DfsWorker;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
-import nz.ac.auckland.se306.group12.models.ScheduledTask;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
 import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.models.datastructures.IntStack;
 
 public class ParallelDfsAOScheduler implements Scheduler {
 
   private static final String HUMAN_READABLE_NAME = "DFS branch-and-bound (AO state space)";
   private final int threadCount;
+  /**
+   * The relative optimality gap that is allowed, which is 0 to find an optimal schedule.
+   *
+   * @see Scheduler#getPruningBound(int, double)
+   */
+  private final double epsilon;
   private final int syncThreshold = 4096;
+  private final StopCondition stopCondition = new StopCondition();
+  /**
+   * Whether a worker is currently publishing a snapshot, so that only one does at a time.
+   */
+  private final AtomicBoolean isPublishing = new AtomicBoolean(false);
   private AtomicInteger currentMinMakespan = new AtomicInteger(Integer.MAX_VALUE);
   private AtomicLong searchedCount = new AtomicLong(0);
   private AtomicLong prunedCount = new AtomicLong(0);
+  /**
+   * The number of ordering subtrees donated to idle workers, which is only updated when a subtree
+   * is donated and so doesn't slow down the search otherwise.
+   *
+   * @see #order(AOSchedule, Deque, IntStack, DfsWorker, DfsWorker)
+   */
+  private AtomicLong donatedCount = new AtomicLong(0);
+  @Getter
+  private volatile SchedulerStatus status = SchedulerStatus.IDLE;
   @Getter
-  private SchedulerStatus status = SchedulerStatus.IDLE;
-  private AtomicReference<AOSchedule> bestAOSchedule = new AtomicReference<>();
+  private volatile int lowerBound = 0;
+  @Getter
+  private volatile SearchSnapshot snapshot = SearchSnapshot.IDLE;
+  private AtomicReference<Schedule> bestSchedule = new AtomicReference<>();
+  private AtomicInteger idleWorkers = new AtomicInteger(0);
+  private List<DfsWorker<Allocation>> workers = new ArrayList<>();
+  /**
+   * The subtrees of ordering searches donated by each worker, at the same index as its worker in
+   * {@link #workers}, which idle workers can steal.
+   */
+  private List<DfsWorker<AOSchedule>> orderingWorkers = new ArrayList<>();
 
   public ParallelDfsAOScheduler(int threadCount) {
+    this(threadCount, 0);
+  }
+
+  /**
+   * Creates a new {@link ParallelDfsAOScheduler} which finds a schedule within a factor of
+   * (1 + epsilon) of optimal.
+   *
+   * @param threadCount The number of threads to run the scheduler with
+   * @param epsilon     The relative optimality gap that is allowed, which is 0 to find an optimal
+   *                    schedule
+   */
+  public ParallelDfsAOScheduler(int threadCount, double epsilon) {
     this.threadCount = threadCount;
+    this.epsilon = epsilon;
   }
 
   /**
    * Updates the local schedule with the global concurrent schedule, as well as the makespan.
    *
-   * @param schedule The {@link AOSchedule} to use to update the global min makespan.
+   * @param schedule The complete {@link Schedule} to use to update the global min makespan.
+   * @return {@code true} if the schedule became the new best schedule, {@code false} otherwise
    */
-  private synchronized void updateGlobalMinMakespanAndSchedule(AOSchedule schedule) {
+  private synchronized boolean updateGlobalMinMakespanAndSchedule(Schedule schedule) {
     int makespan = schedule.getLatestEndTime();
     if (makespan < this.currentMinMakespan.get()) {
       this.currentMinMakespan.set(makespan);
-      this.bestAOSchedule.set(schedule);
+      this.bestSchedule.set(schedule);
+      return true;
     }
+    return false;
   }
 
   /**
+   * Workers pick up the new makespan bound the next time they synchronise with the global state.
+   *
    * @inheritDoc
    */
   @Override
-  public Schedule schedule(Graph taskGraph, int processorCount) {
-    ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+  public boolean offerIncumbent(Schedule schedule) {
+    return this.updateGlobalMinMakespanAndSchedule(schedule);
+  }
 
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.stopCondition.start(timeLimit);
+    this.resetScheduler();
+    if (initialIncumbent != null) {
+      this.offerIncumbent(initialIncumbent);
+    }
     this.status = SchedulerStatus.SCHEDULING;
-    Queue<Allocation> stack = Collections.asLifoQueue(new ArrayDeque<>());
-    stack.add(new Allocation(taskGraph, processorCount));
+    for (int i = 0; i < this.threadCount; i++) {
+      this.workers.add(new DfsWorker<>());
+      this.orderingWorkers.add(new DfsWorker<>());
+    }
+    Allocation initialAllocation =
+        new Allocation(taskGraph, taskGraph.getEffectiveProcessorCount(processorCount));
+    this.lowerBound = initialAllocation.getAllocationHeuristic();
+    this.workers.get(0).give(initialAllocation);
 
-    while (!stack.isEmpty()) {
-      Allocation currentAllocation = stack.remove();
+    this.publishSnapshot();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < this.threadCount; i++) {
+      DfsWorker<Allocation> worker = this.workers.get(i);
+      DfsWorker<AOSchedule> orderingWorker = this.orderingWorkers.get(i);
+      Thread thread = new Thread(
+          () -> this.allocate(worker, orderingWorker, taskGraph.taskCount()));
+      threads.add(thread);
+      thread.start();
+    }
 
-      // Prune if current allocation is worse than current best schedule
-      // Later change this to the allocation heuristic check
-      if (currentAllocation.getAllocationHeuristic() >= this.currentMinMakespan.get()) {
-        // pruned count here is pruning allocations which is technically different from pruning branches
-        continue;
+    this.stopCondition.join(threads);
+
+    this.lowerBound = this.computeLowerBound();
+    this.status = SchedulerStatus.SCHEDULED;
+    this.publishSnapshot();
+    return this.bestSchedule.get();
+  }
+
+  /**
+   * Publishes a new snapshot of the search's progress. This is done by each worker whenever it
+   * synchronises with the global state, so the search never has to wait on anything reading it.
+   * Only one worker publishes at a time, and any other worker that tries to in the meantime skips
+   * it instead of waiting, so an older snapshot can never replace a newer one.
+   * <p>
+   * The counts of each worker are kept by its ordering worker, as only orderings are counted. They
+   * are published by the worker's own thread, so no worker's stacks are locked to take a snapshot.
+   *
+   * @see #syncCounts(DfsWorker, DfsWorker, long, long)
+   */
+  private void publishSnapshot() {
+    if (!this.isPublishing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      List<WorkerSnapshot> workerSnapshots = new ArrayList<>(this.threadCount);
+      for (DfsWorker<AOSchedule> orderingWorker : this.orderingWorkers) {
+        workerSnapshots.add(orderingWorker.toSnapshot());
       }
-      // Same for searching here
+      Schedule incumbent = this.bestSchedule.get();
+      this.snapshot = new SearchSnapshot(this.status, this.searchedCount.get(),
+          this.prunedCount.get(), incumbent, incumbent, this.lowerBound, workerSnapshots,
+          Instant.now());
+    } finally {
+      this.isPublishing.set(false);
+    }
+  }
 
-      if (currentAllocation.isComplete()) {
-        executor.submit(() -> this.order(currentAllocation));
-        continue;
+  /**
+   * Adds a worker's counts since it last synchronised to the global counts, and records them on its
+   * ordering worker for its snapshots, along with the number of allocations and ordering subtrees
+   * queued on it. This must only be called by the worker's own thread.
+   *
+   * @param worker             The worker whose counts to add
+   * @param orderingWorker     The worker's stack of donated ordering subtrees
+   * @param newlySearchedCount The number of partial schedules the worker has searched since it last
+   *                           synchronised
+   * @param newlyPrunedCount   The number of partial schedules the worker has pruned since it last
+   *                           synchronised
+   */
+  private void syncCounts(
+      DfsWorker<Allocation> worker,
+      DfsWorker<AOSchedule> orderingWorker,
+      long newlySearchedCount,
+      long newlyPrunedCount
+  ) {
+    this.prunedCount.getAndAdd(newlyPrunedCount);
+    this.searchedCount.getAndAdd(newlySearchedCount);
+    orderingWorker.sync(newlySearchedCount,
+        worker.getStack().size() + orderingWorker.getStack().size());
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public void stop() {
+    this.stopCondition.requestStop();
+  }
+
+  /**
+   * Computes the lower bound on the optimal makespan once all the workers have finished. Every
+   * allocation or partial schedule that was pruned couldn't have led to a makespan below the
+   * pruning bound, so the optimal makespan is either at least that or could only be found from one
+   * of the allocations or partial schedules left on the workers' stacks if they were stopped.
+   *
+   * @return The lower bound on the optimal makespan
+   * @see Scheduler#getLowerBound()
+   */
+  private int computeLowerBound() {
+    int computedLowerBound =
+        Scheduler.getPruningBound(this.currentMinMakespan.get(), this.epsilon);
+    for (DfsWorker<Allocation> worker : this.workers) {
+      for (Allocation allocation : worker.getStack()) {
+        computedLowerBound = Math.min(computedLowerBound, allocation.getAllocationHeuristic());
+      }
+    }
+    for (DfsWorker<AOSchedule> orderingWorker : this.orderingWorkers) {
+      for (AOSchedule schedule : orderingWorker.getStack()) {
+        computedLowerBound = Math.min(computedLowerBound, schedule.getEstimatedMakespan());
       }
-      currentAllocation.extendAllocation(stack);
     }
+    return computedLowerBound;
+  }
 
-    executor.shutdown();
-    try {
-      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
-    } catch (InterruptedException e) {
-      e.printStackTrace();
+  /**
+   * Searches the allocation tree from the allocation prefixes on the worker's stack. Each complete
+   * allocation is ordered straight away by the same worker. When a worker runs out of allocations,
+   * it steals a prefix from another worker, so that the allocation tree itself is split across all
+   * the workers rather than being enumerated by a single thread.
+   * <p>
+   * Complete allocations are never queued, so a worker only produces more allocations once it has
+   * finished ordering the previous one. As the search is depth-first, each stack holds at most one
+   * allocation per processor for each task, so memory stays bounded by the size of the graph. Every
+   * allocation is checked against the latest bound when it's taken off a stack, rather than the
+   * bound at the time it was created.
+   * <p>
+   * Subtrees of an ordering search that were donated to the worker, either by itself or by being
+   * stolen from another worker, are finished before any more allocations are searched.
+   *
+   * @param worker         The worker whose stack of allocations to search from
+   * @param orderingWorker The worker's stack of donated ordering subtrees
+   * @param taskCount      The number of tasks in the graph, used to size the worker's scratch
+   *                       buffers
+   */
+  private void allocate(
+      DfsWorker<Allocation> worker,
+      DfsWorker<AOSchedule> orderingWorker,
+      int taskCount
+  ) {
+    Queue<Allocation> stack = Collections.asLifoQueue(worker.getStack());
+    Deque<AOSchedule> orderingStack = new ArrayDeque<>();
+    IntStack propagationStack = new IntStack(taskCount);
+    Schedule guideSchedule = null;
+    int[] guideProcessors = null;
+    boolean hasWork = true;
+
+    while (this.hasRunningWorker() && !this.stopCondition.shouldStop()) {
+
+      while (hasWork) {
+        AOSchedule donatedSchedule = orderingWorker.steal();
+        if (donatedSchedule != null) {
+          if (!this.order(donatedSchedule, orderingStack, propagationStack, worker,
+              orderingWorker)) {
+            return;
+          }
+          continue;
+        }
+
+        if (this.stopCondition.shouldStop()) {
+          return;
+        }
+        Allocation currentAllocation = worker.steal();
+        if (currentAllocation == null) {
+          this.idleWorkers.incrementAndGet();
+          hasWork = false;
+          break;
+        }
+
+        // Prune if current allocation is worse than current best schedule
+        int pruningBound = Scheduler.getPruningBound(this.currentMinMakespan.get(), this.epsilon);
+        if (currentAllocation.getAllocationHeuristic() >= pruningBound) {
+          // Pruning allocations is technically different from pruning branches, so isn't counted
+          continue;
+        }
+
+        if (currentAllocation.isComplete()) {
+          if (!this.order(new AOSchedule(currentAllocation), orderingStack, propagationStack,
+              worker, orderingWorker)) {
+            return;
+          }
+          continue;
+        }
+        // Explore the incumbent's allocation first, as better schedules are likely to be nearby
+        Schedule incumbent = this.bestSchedule.get();
+        if (incumbent != guideSchedule) {
+          guideSchedule = incumbent;
+          guideProcessors = currentAllocation.getGuideProcessors(incumbent);
+        }
+        currentAllocation.extendAllocation(stack, guideProcessors);
+      }
+
+      hasWork = this.takeWorkFromRandomWorker(worker, orderingWorker);
+      if (!hasWork) {
+        // Let the workers that still have allocations run if there are fewer cores than workers
+        Thread.yield();
+      }
     }
+  }
 
-    this.status = SchedulerStatus.SCHEDULED;
-    return this.bestAOSchedule.get().asSchedule();
+  /**
+   * Steals an allocation prefix, or failing that a donated ordering subtree, from a random worker.
+   * This will be attempted 3 times and only return {@code false} if it failed on all 3 attempts.
+   *
+   * @param worker         The idle worker trying to steal work from another
+   * @param orderingWorker The idle worker's stack of donated ordering subtrees
+   * @return {@code true} if the steal was successful, {@code false} otherwise
+   */
+  private boolean takeWorkFromRandomWorker(
+      DfsWorker<Allocation> worker,
+      DfsWorker<AOSchedule> orderingWorker
+  ) {
+    for (int attempt = 0; attempt < 3; attempt++) {
+      int otherWorkerIndex = ThreadLocalRandom.current().nextInt(this.threadCount);
+      DfsWorker<Allocation> otherWorker = this.workers.get(otherWorkerIndex);
+
+      // We can't steal from ourselves
+      if (otherWorker == worker) {
+        continue;
+      }
+
+      Allocation work = otherWorker.steal();
+      if (work != null) {
+        worker.give(work);
+        this.idleWorkers.decrementAndGet();
+        return true;
+      }
+
+      AOSchedule orderingWork = this.orderingWorkers.get(otherWorkerIndex).steal();
+      if (orderingWork != null) {
+        orderingWorker.give(orderingWork);
+        this.idleWorkers.decrementAndGet();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return {@code true} if any of the workers still have allocations or ordering subtrees to
+   * search
+   */
+  private boolean hasRunningWorker() {
+    return this.idleWorkers.get() < this.threadCount;
   }
 
   /**
    * Perfects the ordering of the tasks in an allocation. This will find all valid possible
-   * schedules based on their processor allocations and dependences.
+   * schedules based on their processor allocations and dependences, from the given schedule
+   * onwards.
+   * <p>
+   * A few allocations have far larger ordering trees than the rest, so while other workers are
+   * idle, the shallowest schedule on the stack (Which has the largest subtree left to search) is
+   * donated to the worker's ordering stack for them to steal. Only one schedule is donated at a
+   * time, so that no work is handed over while nobody is waiting for it.
    *
-   * @param allocation The allocation to order
+   * @param initialSchedule  The partial schedule to search the orderings of
+   * @param stack            The empty stack of schedules to search from, which is reused for every
+   *                         allocation and is empty again once this returns
+   * @param propagationStack The scratch stack used to propagate start times when extending a
+   *                         schedule
+   * @param worker           The worker whose stack of allocations is being searched
+   * @param orderingWorker   The worker's stack of donated ordering subtrees
+   * @return {@code true} if all the orderings were searched, or {@code false} if the search was
+   * stopped, in which case the schedules left to search are moved to the worker's ordering stack
    */
-  private void order(Allocation allocation) {
-    Queue<AOSchedule> queue = Collections.asLifoQueue(new ArrayDeque<>());
+  private boolean order(
+      AOSchedule initialSchedule,
+      Deque<AOSchedule> stack,
+      IntStack propagationStack,
+      DfsWorker<Allocation> worker,
+      DfsWorker<AOSchedule> orderingWorker
+  ) {
+    Graph taskGraph = initialSchedule.getTaskGraph();
     int syncCounter = 0;
     int localMinMakespan = this.currentMinMakespan.get();
+    int pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+    int[] alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
     int localPrunedCount = 0;
     int localSearchedCount = 0;
 
-    queue.add(new AOSchedule(allocation));
+    stack.push(initialSchedule);
 
-    while (!queue.isEmpty()) {
-      AOSchedule currentSchedule = queue.remove();
+    while (!stack.isEmpty()) {
+      AOSchedule currentSchedule = stack.pop();
       syncCounter++;
 
+      if (stack.size() > 1 && this.idleWorkers.get() > 0 && !orderingWorker.hasWork()) {
+        orderingWorker.give(stack.pollLast());
+        this.donatedCount.incrementAndGet();
+      }
+
       if (syncCounter == this.syncThreshold) {
-        localMinMakespan = this.currentMinMakespan.get();
-        this.prunedCount.getAndAdd(localPrunedCount);
-        this.searchedCount.getAndAdd(localSearchedCount);
+        if (this.stopCondition.shouldStop()) {
+          // Leave the schedules where they're counted towards the lower bound
+          orderingWorker.give(currentSchedule);
+          stack.forEach(orderingWorker::give);
+          stack.clear();
+          this.syncCounts(worker, orderingWorker, localSearchedCount, localPrunedCount);
+          return false;
+        }
+        int globalMinMakespan = this.currentMinMakespan.get();
+        if (globalMinMakespan != localMinMakespan) {
+          localMinMakespan = globalMinMakespan;
+          pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+          alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
+        }
+        this.syncCounts(worker, orderingWorker, localSearchedCount, localPrunedCount);
         localSearchedCount = 0;
         localPrunedCount = 0;
         syncCounter = 0;
+        this.publishSnapshot();
       }
 
       // Prune if current schedule is worse than current best
-      if (currentSchedule.getEstimatedMakespan() >= localMinMakespan) {
+      if (currentSchedule.getEstimatedMakespan() >= pruningBound
+          || currentSchedule.isPastAlapStartTimes(alapStartTimes)) {
         localPrunedCount++;
         continue;
       }
@@ -124,22 +444,25 @@ public class ParallelDfsAOScheduler implements Scheduler {
       localSearchedCount++;
 
       // Check if current schedule is complete
-      if (currentSchedule.getScheduledTaskCount() == allocation.getTaskGraph().taskCount()) {
+      if (currentSchedule.getScheduledTaskCount() == taskGraph.taskCount()) {
         localMinMakespan = currentSchedule.getLatestEndTime();
-        this.updateGlobalMinMakespanAndSchedule(currentSchedule);
+        pruningBound = Scheduler.getPruningBound(localMinMakespan, this.epsilon);
+        alapStartTimes = taskGraph.getAlapStartTimes(pruningBound);
+        this.updateGlobalMinMakespanAndSchedule(currentSchedule.asSchedule());
         continue;
       }
 
       // Check to find if any tasks can be scheduled and schedule any valid schedules
       for (Task task : currentSchedule.getReadyTasks()) {
-        ScheduledTask newScheduledTask = currentSchedule.extendWithTask(task);
-        AOSchedule newSchedule = currentSchedule.extendWithTask(newScheduledTask, task);
+        AOSchedule newSchedule = currentSchedule.extendWithTask(task, propagationStack);
         if (newSchedule != null) {
-          queue.add(newSchedule);
+          stack.push(newSchedule);
         }
       }
     }
 
+    this.syncCounts(worker, orderingWorker, localSearchedCount, localPrunedCount);
+    return true;
   }
 
   @Override
@@ -147,13 +470,23 @@ public class ParallelDfsAOScheduler implements Scheduler {
     return HUMAN_READABLE_NAME;
   }
 
+  /**
+   * Resets the scheduler to its initial state so that it can be used to schedule a new graph.
+   */
+  private void resetScheduler() {
+    this.searchedCount.set(0);
+    this.prunedCount.set(0);
+    this.donatedCount.set(0);
+    this.bestSchedule.set(null);
+    this.currentMinMakespan.set(Integer.MAX_VALUE);
+    this.idleWorkers.set(0);
+    this.workers.clear();
+    this.orderingWorkers.clear();
+  }
+
   @Override
   public Schedule getBestSchedule() {
-    AOSchedule bestAOSchedule = this.bestAOSchedule.get();
-    if (bestAOSchedule == null) {
-      return null;
-    }
-    return bestAOSchedule.asSchedule();
+    return this.bestSchedule.get();
   }
 
   @Override
@@ -166,4 +499,11 @@ public class ParallelDfsAOScheduler implements Scheduler {
     return this.prunedCount.get();
   }
 
+  /**
+   * @return The number of ordering subtrees donated to idle workers during the latest search
+   */
+  public long getDonatedCount() {
+    return this.donatedCount.get();
+  }
+
 }
@@ -0,0 +1,237 @@
+package nz.ac.auckland.se306.group12.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot.WorkerSnapshot;
+
+/**
+ * Races several exact schedulers against each other on the same graph, each as its own
+ * {@link SchedulingJob}. Which scheduler is fastest depends heavily on the shape of the graph and
+ * its communication to computation ratio, so racing them turns the worst case choice of scheduler
+ * into close to the best case.
+ * <p>
+ * The schedulers share a single upper bound. Whenever one of them finds a better complete schedule
+ * it's offered to all the others through {@link Scheduler#offerIncumbent(Schedule)}, so each of
+ * them can prune with the best schedule found by any of them. The first scheduler to finish has
+ * proven that the shared incumbent is within its optimality gap, so the others are stopped. When
+ * every scheduler is exact the returned schedule is optimal, and when they're run with an epsilon
+ * of E it's within a factor of (1 + E) of optimal.
+ * <p>
+ * Each scheduler runs on at least one thread of its own, so the portfolio needs at least as many
+ * threads as it has schedulers.
+ */
+public class PortfolioScheduler implements Scheduler {
+
+  private static final String HUMAN_READABLE_NAME = "Portfolio (DFS, A* and AO racing)";
+  /**
+   * How often to check whether the portfolio has been asked to stop while waiting for one of the
+   * schedulers to finish.
+   */
+  private static final long POLL_INTERVAL_MILLIS = 50;
+
+  private final List<Scheduler> schedulers;
+  private final AtomicReference<Schedule> bestSchedule = new AtomicReference<>();
+  private final StopCondition stopCondition = new StopCondition();
+
+  @Getter
+  private volatile SchedulerStatus status = SchedulerStatus.IDLE;
+  @Getter
+  private volatile int lowerBound = 0;
+
+  /**
+   * Creates a new {@link PortfolioScheduler} instance.
+   *
+   * @param schedulers The exact schedulers to race, which must all support
+   *                   {@link Scheduler#offerIncumbent(Schedule)} to share the bound
+   */
+  public PortfolioScheduler(List<Scheduler> schedulers) {
+    this.schedulers = schedulers;
+  }
+
+  /**
+   * Starts every scheduler as its own job and waits for the first one to finish, sharing their
+   * incumbents in the meantime. The other jobs are then stopped, and the best schedule found by any
+   * of them is returned. If the time limit passes first, every scheduler stops by itself.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.stopCondition.start(timeLimit);
+    // Reset before the status changes, so that incumbents offered once the portfolio is seen to be
+    // scheduling aren't lost
+    this.bestSchedule.set(initialIncumbent);
+    this.status = SchedulerStatus.SCHEDULING;
+    CompletableFuture<Void> firstFinished = new CompletableFuture<>();
+    AtomicInteger failedCount = new AtomicInteger(0);
+    List<SchedulingJob> jobs = new ArrayList<>();
+
+    for (Scheduler scheduler : this.schedulers) {
+      SchedulingJob job = scheduler
+          .scheduleAsync(taskGraph, processorCount, timeLimit, initialIncumbent)
+          .onIncumbent(this::offerIncumbent)
+          .whenComplete((schedule, exception) -> {
+            if (exception == null) {
+              if (schedule != null) {
+                this.offerIncumbent(schedule);
+              }
+              firstFinished.complete(null);
+            } else if (failedCount.incrementAndGet() == this.schedulers.size()) {
+              // Only give up if none of the schedulers can schedule the graph
+              firstFinished.completeExceptionally(exception);
+            }
+          });
+      jobs.add(job);
+    }
+
+    try {
+      // Waiting with get rather than checking isDone, so that the failure of every scheduler is
+      // rethrown rather than ending the loop as if one had finished
+      while (!this.stopCondition.shouldStop()) {
+        try {
+          firstFinished.get(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+          break;
+        } catch (TimeoutException e) {
+          // Check whether the portfolio has been stopped before waiting again
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // Every scheduler has failed, so rethrow the last failure as-is if it's unchecked
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Every scheduler in the portfolio failed", cause);
+    }
+
+    jobs.forEach(SchedulingJob::stop);
+    this.stopCondition.join(jobs.stream().map(SchedulingJob::getSearchThread).toList());
+
+    // Each scheduler's lower bound holds for every schedule, so the highest is the tightest
+    Schedule schedule = this.bestSchedule.get();
+    int highestLowerBound = this.schedulers.stream()
+        .mapToInt(Scheduler::getLowerBound)
+        .max()
+        .orElse(0);
+    this.lowerBound = schedule == null
+        ? highestLowerBound
+        : Math.min(highestLowerBound, schedule.getLatestEndTime());
+    this.status = SchedulerStatus.SCHEDULED;
+    return schedule;
+  }
+
+  /**
+   * Every scheduler in the portfolio is asked to stop.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public void stop() {
+    this.stopCondition.requestStop();
+    this.schedulers.forEach(Scheduler::stop);
+  }
+
+  /**
+   * The schedule is passed on to every scheduler in the portfolio if it's an improvement.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public boolean offerIncumbent(Schedule schedule) {
+    synchronized (this.bestSchedule) {
+      Schedule currentBestSchedule = this.bestSchedule.get();
+      if (currentBestSchedule != null
+          && currentBestSchedule.getLatestEndTime() <= schedule.getLatestEndTime()) {
+        return false;
+      }
+      this.bestSchedule.set(schedule);
+    }
+
+    for (Scheduler scheduler : this.schedulers) {
+      scheduler.offerIncumbent(schedule);
+    }
+    return true;
+  }
+
+  @Override
+  public Schedule getBestSchedule() {
+    return this.bestSchedule.get();
+  }
+
+  /**
+   * The portfolio doesn't search by itself, so this combines the latest snapshots of every
+   * scheduler in it. The workers of each scheduler are listed in the same order as the schedulers,
+   * and the timestamp is that of the newest snapshot, so that it's only after the start of a run
+   * once one of the schedulers has started too.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public SearchSnapshot getSnapshot() {
+    SchedulerStatus currentStatus = this.status;
+    if (currentStatus == SchedulerStatus.IDLE) {
+      return SearchSnapshot.IDLE;
+    }
+
+    long searchedCount = 0;
+    long prunedCount = 0;
+    int highestLowerBound = 0;
+    List<WorkerSnapshot> workers = new ArrayList<>();
+    Instant timestamp = Instant.EPOCH;
+    for (Scheduler scheduler : this.schedulers) {
+      SearchSnapshot snapshot = scheduler.getSnapshot();
+      if (snapshot.timestamp().isAfter(timestamp)) {
+        timestamp = snapshot.timestamp();
+      }
+      searchedCount += snapshot.searchedCount();
+      prunedCount += snapshot.prunedCount();
+      highestLowerBound = Math.max(highestLowerBound, snapshot.lowerBound());
+      workers.addAll(snapshot.workers());
+    }
+
+    Schedule incumbent = this.bestSchedule.get();
+    int currentLowerBound = currentStatus == SchedulerStatus.SCHEDULED
+        ? this.lowerBound
+        : highestLowerBound;
+    if (incumbent != null) {
+      currentLowerBound = Math.min(currentLowerBound, incumbent.getLatestEndTime());
+    }
+    return new SearchSnapshot(currentStatus, searchedCount, prunedCount, incumbent, incumbent,
+        currentLowerBound, workers, timestamp);
+  }
+
+  @Override
+  public long getSearchedCount() {
+    return this.schedulers.stream().mapToLong(Scheduler::getSearchedCount).sum();
+  }
+
+  @Override
+  public long getPrunedCount() {
+    return this.schedulers.stream().mapToLong(Scheduler::getPrunedCount).sum();
+  }
+
+  @Override
+  public String getHumanReadableName() {
+    return HUMAN_READABLE_NAME;
+  }
+
+}
@@ -0,0 +1,132 @@
+package nz.ac.auckland.se306.group12.scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.Task;
+
+/**
+ * Schedules the same graph on each number of processors in a range, to find out how the optimal
+ * makespan changes with the number of processors (E.g. to choose the size of a cluster). The graph
+ * is only read and preprocessed once, and the same scheduler is reused for every processor count.
+ * <p>
+ * Adding a processor can never increase the optimal makespan, as the extra processor can just be
+ * left empty. Each schedule is therefore re-timed on one more processor and used as the initial
+ * incumbent for the next processor count, so that only schedules which beat it are searched for.
+ * Once adding processors can't help any more, the rest of the range is filled in without searching.
+ */
+public class ProcessorSweep {
+
+  private final Graph taskGraph;
+  private final Scheduler scheduler;
+  private final Duration timeLimit;
+  /**
+   * The length of the critical path, ignoring communication costs. No schedule can beat this,
+   * however many processors it has.
+   */
+  private final int criticalPathLength;
+
+  /**
+   * Creates a new {@link ProcessorSweep} instance.
+   *
+   * @param taskGraph The task graph to schedule, which must already have been preprocessed
+   * @param scheduler The scheduler to schedule the graph with on each number of processors
+   * @param timeLimit How long to search for on each number of processors, or {@code null} to
+   *                  search until finished
+   */
+  public ProcessorSweep(Graph taskGraph, Scheduler scheduler, Duration timeLimit) {
+    this.taskGraph = taskGraph;
+    this.scheduler = scheduler;
+    this.timeLimit = timeLimit;
+    this.criticalPathLength = taskGraph.getTasks()
+        .stream()
+        .mapToInt(Task::getBottomLevel)
+        .max()
+        .orElse(0);
+  }
+
+  /**
+   * Schedules the graph on every number of processors from minProcessorCount to maxProcessorCount
+   * inclusive. Searching stops early once the previous schedule can't be beaten with more
+   * processors, which is when the extra processor would never be used or when the makespan already
+   * equals the length of the critical path.
+   *
+   * @param minProcessorCount The smallest number of processors to schedule on
+   * @param maxProcessorCount The largest number of processors to schedule on
+   * @return A point on the curve for each number of processors, in increasing order
+   */
+  public List<Point> sweep(int minProcessorCount, int maxProcessorCount) {
+    List<Point> curve = new ArrayList<>();
+    Point previousPoint = null;
+
+    for (int processorCount = minProcessorCount; processorCount <= maxProcessorCount;
+        processorCount++) {
+      if (previousPoint != null && !this.canImprove(previousPoint, processorCount)) {
+        previousPoint = new Point(processorCount, previousPoint.schedule(),
+            this.tightenLowerBound(previousPoint.lowerBound(), previousPoint.schedule()), false);
+        curve.add(previousPoint);
+        continue;
+      }
+
+      LocalSearchImprover improver =
+          new LocalSearchImprover(this.taskGraph, this.scheduler, processorCount);
+      Schedule initialIncumbent = previousPoint == null
+          ? null
+          : improver.retime(previousPoint.schedule());
+      Schedule schedule = this.scheduler.schedule(
+          this.taskGraph, processorCount, this.timeLimit, initialIncumbent);
+      if (schedule == null) {
+        // The time limit passed before any complete schedule was found
+        schedule = improver.getListSchedule();
+      }
+
+      previousPoint = new Point(processorCount, schedule,
+          this.tightenLowerBound(this.scheduler.getLowerBound(), schedule), true);
+      curve.add(previousPoint);
+    }
+
+    return curve;
+  }
+
+  /**
+   * Tightens a lower bound with the length of the critical path, which is a lower bound on every
+   * number of processors.
+   *
+   * @param lowerBound The lower bound to tighten
+   * @param schedule   The best schedule found, whose makespan the bound can't be above
+   * @return The tightened lower bound
+   */
+  private int tightenLowerBound(int lowerBound, Schedule schedule) {
+    return Math.min(schedule.getLatestEndTime(), Math.max(lowerBound, this.criticalPathLength));
+  }
+
+  /**
+   * @param previousPoint  The point for one fewer processor
+   * @param processorCount The number of processors to schedule on next
+   * @return {@code true} if a schedule on processorCount processors could beat the previous one,
+   * {@code false} if it's known that it can't
+   */
+  private boolean canImprove(Point previousPoint, int processorCount) {
+    boolean usesExtraProcessor = this.taskGraph.getEffectiveProcessorCount(processorCount)
+        > this.taskGraph.getEffectiveProcessorCount(processorCount - 1);
+    return usesExtraProcessor
+        && previousPoint.schedule().getLatestEndTime() > this.criticalPathLength;
+  }
+
+  /**
+   * A point on the curve of makespan against the number of processors.
+   *
+   * @param processorCount The number of processors scheduled on
+   * @param schedule       The best schedule found on that many processors
+   * @param lowerBound     The proven lower bound on the optimal makespan on that many processors,
+   *                       which is the schedule's makespan if it's optimal
+   * @param isSearched     Whether the schedule was searched for, rather than carried over from
+   *                       fewer processors because more processors couldn't help
+   */
+  public record Point(int processorCount, Schedule schedule, int lowerBound, boolean isSearched) {
+
+  }
+
+}
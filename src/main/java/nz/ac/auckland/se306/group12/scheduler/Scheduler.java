@@ -1,8 +1,10 @@
 package nz.ac.auckland.se306.group12.scheduler;
 
+import java.time.Duration;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
 
 public interface Scheduler {
 
@@ -17,6 +19,48 @@ public interface Scheduler {
    */
   int INITIAL_CLOSED_SET_CAPACITY = 1 << 13; // 8192
 
+  /**
+   * The max number of dominance keys to store Pareto frontiers for in the dominance table. Each
+   * frontier only holds a few small vectors, so this is kept smaller than the closed sets.
+   *
+   * @see Schedule#generateDominance(Graph)
+   */
+  int MAX_DOMINANCE_KEY_COUNT = 1 << 16; // 65536
+  /**
+   * The max number of non-dominated schedules to remember for each dominance key. Most keys only
+   * ever see a handful of schedules, and checking a new schedule is linear in this size.
+   */
+  int MAX_DOMINANCE_FRONTIER_SIZE = 8;
+  /**
+   * How far below an integer the quotient in {@link #getPruningBound(int, double)} can be and still
+   * be treated as that integer. This is far larger than the rounding error of the division for any
+   * realistic makespan, and far smaller than the gap to the next integer.
+   */
+  double PRUNING_BOUND_TOLERANCE = 1e-9;
+
+  /**
+   * Finds the value a lower bound on the makespan of a partial schedule must be below for it to be
+   * searched, given the makespan of the incumbent. With an epsilon of 0 this is just the incumbent
+   * makespan, and only schedules which could beat the incumbent are searched. Otherwise, a partial
+   * schedule is also pruned when its lower bound times (1 + epsilon) is at least the incumbent
+   * makespan, which guarantees the returned schedule is within a factor of (1 + epsilon) of the
+   * optimal makespan.
+   *
+   * @param incumbentMakespan The makespan of the incumbent, or {@link Integer#MAX_VALUE} if there
+   *                          isn't one
+   * @param epsilon           The relative optimality gap that is allowed, which is at least 0
+   * @return The bound to prune partial schedules against
+   */
+  static int getPruningBound(int incumbentMakespan, double epsilon) {
+    if (incumbentMakespan == Integer.MAX_VALUE || epsilon == 0) {
+      return incumbentMakespan;
+    }
+    // Lower bounds are integers, so bound * (1 + epsilon) >= incumbent iff bound >= this. When the
+    // quotient is an exact integer, the division can round it up by a tiny amount (e.g.
+    // 201 / 1.005), so a tolerance is subtracted to stop ceil from adding one to it.
+    return (int) Math.ceil(incumbentMakespan / (1 + epsilon) - PRUNING_BOUND_TOLERANCE);
+  }
+
   /**
    * Returns the number of partial schedules that have been searched so far by the scheduler. A
    * partial schedule is considered searched if it is not pruned and is therefore a potential
@@ -44,6 +88,31 @@ public interface Scheduler {
    */
   Schedule getBestSchedule();
 
+  /**
+   * Offers a complete, valid schedule found outside of this scheduler (For example, by a
+   * {@link LocalSearchImprover}) as a new incumbent. If its makespan is lower than the best
+   * makespan found so far, the scheduler can use it as a tighter bound for pruning and will return
+   * it from {@link #schedule(Graph, int)} if nothing better is found. This is safe to call from
+   * another thread while the scheduler is running.
+   * <p>
+   * By default, offered schedules are ignored.
+   *
+   * @param schedule The complete schedule to offer
+   * @return {@code true} if the schedule was accepted as the new incumbent, {@code false} otherwise
+   */
+  default boolean offerIncumbent(Schedule schedule) {
+    return false;
+  }
+
+  /**
+   * Returns the latest snapshot of the search's progress, which the search publishes every so often
+   * without locking. Unlike calling the other getters one after another, every field of the
+   * snapshot was taken at the same time. This is safe to call from any thread at any rate.
+   *
+   * @return The latest snapshot of the search, or {@link SearchSnapshot#IDLE} if it hasn't started
+   */
+  SearchSnapshot getSnapshot();
+
   /**
    * Returns the current status of the scheduler.
    *
@@ -62,7 +131,93 @@ public interface Scheduler {
    * @param processorCount The number of processors to schedule the tasks on
    * @return A valid {@link Schedule} for the given graph of tasks on the processors
    */
-  Schedule schedule(Graph taskGraph, int processorCount);
+  default Schedule schedule(Graph taskGraph, int processorCount) {
+    return this.schedule(taskGraph, processorCount, null);
+  }
+
+  /**
+   * Finds a valid schedule like {@link #schedule(Graph, int)}, but stops searching once the time
+   * limit has passed or {@link #stop()} is called and returns the best schedule found so far. How
+   * far that schedule could be from optimal is given by {@link #getLowerBound()}.
+   *
+   * @param taskGraph      The {@link Graph} representing the tasks to be scheduled
+   * @param processorCount The number of processors to schedule the tasks on
+   * @param timeLimit      How long to search for, or {@code null} to search until finished
+   * @return The best valid {@link Schedule} found, which can be null if the search was stopped
+   * before it found any complete schedule
+   */
+  default Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit) {
+    return this.schedule(taskGraph, processorCount, timeLimit, null);
+  }
+
+  /**
+   * Finds a valid schedule like {@link #schedule(Graph, int, Duration)}, starting from a known
+   * complete schedule as the incumbent. Only schedules that beat it are searched for, so a good
+   * initial incumbent can prune most of the search from the start. If nothing better is found, the
+   * initial incumbent is returned.
+   *
+   * @param taskGraph        The {@link Graph} representing the tasks to be scheduled
+   * @param processorCount   The number of processors to schedule the tasks on
+   * @param timeLimit        How long to search for, or {@code null} to search until finished
+   * @param initialIncumbent A complete, valid schedule of the graph on no more than processorCount
+   *                         processors to start from, or {@code null} to start without one
+   * @return The best valid {@link Schedule} found, which can be null if the search was stopped
+   * before it found any complete schedule and there was no initial incumbent
+   */
+  Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent);
+
+  /**
+   * Starts finding a valid schedule like {@link #schedule(Graph, int, Duration)} on a new thread,
+   * returning straight away with a handle to the search. The handle can be used to wait for the
+   * schedule, to listen for new incumbents and to stop or cancel the search. A scheduler can only
+   * run one search at a time.
+   *
+   * @param taskGraph      The {@link Graph} representing the tasks to be scheduled
+   * @param processorCount The number of processors to schedule the tasks on
+   * @param timeLimit      How long to search for, or {@code null} to search until finished
+   * @return The handle to the running search
+   */
+  default SchedulingJob scheduleAsync(Graph taskGraph, int processorCount, Duration timeLimit) {
+    return this.scheduleAsync(taskGraph, processorCount, timeLimit, null);
+  }
+
+  /**
+   * Starts finding a valid schedule like {@link #schedule(Graph, int, Duration, Schedule)} on a new
+   * thread, returning straight away with a handle to the search.
+   *
+   * @param taskGraph        The {@link Graph} representing the tasks to be scheduled
+   * @param processorCount   The number of processors to schedule the tasks on
+   * @param timeLimit        How long to search for, or {@code null} to search until finished
+   * @param initialIncumbent A complete, valid schedule to start from, or {@code null}
+   * @return The handle to the running search
+   * @see #scheduleAsync(Graph, int, Duration)
+   */
+  default SchedulingJob scheduleAsync(Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    return new SchedulingJob(this, taskGraph, processorCount, timeLimit, initialIncumbent)
+        .start();
+  }
+
+  /**
+   * Asks the scheduler to stop searching as soon as possible, so that
+   * {@link #schedule(Graph, int, Duration)} returns the best schedule found so far. This is safe to
+   * call from another thread while the scheduler is running, and has no effect otherwise.
+   * Interrupting the thread that called {@link #schedule(Graph, int, Duration)} has the same
+   * effect, and also works before the search has started.
+   */
+  void stop();
+
+  /**
+   * Returns a lower bound on the makespan of every valid schedule of the graph being scheduled.
+   * Once the search has finished without being stopped, this is the makespan of the schedule it
+   * returned (Or, with an epsilon above 0, the lowest makespan that epsilon still allows to be
+   * optimal). If it was stopped, this is the lowest bound on the parts of the search space it
+   * didn't get to, so together with the returned schedule it gives the remaining optimality gap.
+   *
+   * @return The proven lower bound on the optimal makespan
+   */
+  int getLowerBound();
 
   /**
    * @return The full, human-readable name of this scheduler, in sentence case.
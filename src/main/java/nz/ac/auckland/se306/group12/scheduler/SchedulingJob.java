@@ -0,0 +1,207 @@
+package nz.ac.auckland.se306.group12.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+
+/**
+ * A handle to a {@link Scheduler} searching on its own thread, which is started by
+ * {@link Scheduler#scheduleAsync(Graph, int, Duration)}. As well as waiting for the schedule like
+ * any other {@link Future}, it can be used to listen for every new incumbent the scheduler finds
+ * and to stop or cancel the search.
+ * <p>
+ * Stopping is cooperative. The search thread is interrupted, and every thread of the search checks
+ * for this whenever it synchronises with the global bound, so the whole search finishes cleanly
+ * within a few milliseconds. As interrupts aren't lost, this works even if the search hasn't
+ * started yet.
+ */
+public class SchedulingJob implements Future<Schedule> {
+
+  /**
+   * How often to check the scheduler for a new incumbent while it's searching.
+   */
+  private static final long POLL_INTERVAL_MILLIS = 50;
+
+  @Getter
+  private final Scheduler scheduler;
+  private final CompletableFuture<Schedule> result = new CompletableFuture<>();
+  private final List<Consumer<Schedule>> incumbentListeners = new ArrayList<>();
+  @Getter(AccessLevel.PACKAGE)
+  private final Thread searchThread;
+  private final Thread incumbentWatcher;
+  /**
+   * When the job was started, so that snapshots left over from a previous search by the same
+   * scheduler are ignored.
+   */
+  private Instant startTime;
+  /**
+   * The incumbent the listeners were last notified of, if any.
+   */
+  private Schedule lastIncumbent;
+
+  /**
+   * Creates a new {@link SchedulingJob} instance. This doesn't start the search, which is done by
+   * {@link #start()}.
+   *
+   * @param scheduler        The scheduler to search with
+   * @param taskGraph        The {@link Graph} representing the tasks to be scheduled
+   * @param processorCount   The number of processors to schedule the tasks on
+   * @param timeLimit        How long to search for, or {@code null} to search until finished
+   * @param initialIncumbent A complete, valid schedule to start from, or {@code null}
+   */
+  SchedulingJob(Scheduler scheduler, Graph taskGraph, int processorCount, Duration timeLimit,
+      Schedule initialIncumbent) {
+    this.scheduler = scheduler;
+    this.searchThread = new Thread(() -> {
+      try {
+        this.result.complete(
+            scheduler.schedule(taskGraph, processorCount, timeLimit, initialIncumbent));
+      } catch (Throwable e) {
+        // Errors such as running out of memory have to complete the result too, otherwise anyone
+        // waiting on it would wait forever
+        this.result.completeExceptionally(e);
+      }
+    });
+    // A daemon thread so that it never keeps the program alive after the search has finished
+    this.incumbentWatcher = new Thread(this::watchIncumbents);
+    this.incumbentWatcher.setDaemon(true);
+    this.result.thenAccept(this::notifyIfImproved);
+  }
+
+  /**
+   * Starts the search and the thread which notifies the incumbent listeners.
+   *
+   * @return This job
+   */
+  SchedulingJob start() {
+    this.startTime = Instant.now();
+    this.searchThread.start();
+    this.incumbentWatcher.start();
+    return this;
+  }
+
+  /**
+   * Registers a listener which is called with every complete schedule that improves on the best
+   * one found so far, including the schedule the search finishes with. If there already is one, the
+   * listener is called with it straight away. Listeners are called one at a time from a background
+   * thread, so they should return quickly.
+   *
+   * @param listener The listener to call with each new incumbent
+   * @return This job, so that calls can be chained
+   */
+  public synchronized SchedulingJob onIncumbent(Consumer<Schedule> listener) {
+    this.incumbentListeners.add(listener);
+    if (this.lastIncumbent != null) {
+      listener.accept(this.lastIncumbent);
+    }
+    return this;
+  }
+
+  /**
+   * Registers an action which is called once the search has finished, with either the schedule it
+   * returned or the exception it threw. If the search has already finished, the action is called
+   * straight away.
+   *
+   * @param action The action to call with the schedule or exception
+   * @return This job, so that calls can be chained
+   * @see CompletableFuture#whenComplete(BiConsumer)
+   */
+  public SchedulingJob whenComplete(BiConsumer<? super Schedule, ? super Throwable> action) {
+    this.result.whenComplete(action);
+    return this;
+  }
+
+  /**
+   * Stops the search as soon as possible, after which {@link #get()} returns the best schedule it
+   * found. This can be null if it didn't find a complete schedule in time.
+   */
+  public void stop() {
+    this.searchThread.interrupt();
+  }
+
+  /**
+   * Stops the search as soon as possible and discards its result. The search is always stopped
+   * cooperatively, so it doesn't matter whether {@code mayInterruptIfRunning} is set.
+   *
+   * @inheritDoc
+   */
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean isCancelled = this.result.cancel(mayInterruptIfRunning);
+    this.stop();
+    return isCancelled;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.result.isCancelled();
+  }
+
+  @Override
+  public boolean isDone() {
+    return this.result.isDone();
+  }
+
+  @Override
+  public Schedule get() throws InterruptedException, ExecutionException {
+    return this.result.get();
+  }
+
+  @Override
+  public Schedule get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return this.result.get(timeout, unit);
+  }
+
+  /**
+   * Polls the scheduler for a new incumbent until the search has finished.
+   */
+  private void watchIncumbents() {
+    try {
+      while (!this.result.isDone()) {
+        SearchSnapshot snapshot = this.scheduler.getSnapshot();
+        if (!snapshot.timestamp().isBefore(this.startTime)) {
+          this.notifyIfImproved(snapshot.incumbent());
+        }
+        Thread.sleep(POLL_INTERVAL_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Notifies the listeners of the schedule if it has a lower makespan than the last incumbent they
+   * were notified of.
+   *
+   * @param schedule The complete schedule to notify the listeners of, which can be null
+   */
+  private synchronized void notifyIfImproved(Schedule schedule) {
+    if (schedule == null) {
+      return;
+    }
+    if (this.lastIncumbent != null
+        && this.lastIncumbent.getLatestEndTime() <= schedule.getLatestEndTime()) {
+      return;
+    }
+
+    this.lastIncumbent = schedule;
+    for (Consumer<Schedule> listener : this.incumbentListeners) {
+      listener.accept(schedule);
+    }
+  }
+
+}
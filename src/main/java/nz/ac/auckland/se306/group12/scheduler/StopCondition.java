@@ -0,0 +1,89 @@
+package nz.ac.auckland.se306.group12.scheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Decides when a search should stop before it has finished, which is once its time limit has
+ * passed, once it has been asked to through {@link Scheduler#stop()} or once the thread that
+ * started it has been interrupted. This is safe to check from any of the search's threads.
+ * Searches only check it every so often (Usually whenever they synchronise with the global bound),
+ * so they can keep running for a few milliseconds after they should have stopped.
+ */
+public class StopCondition {
+
+  private volatile boolean isStopRequested = false;
+  /**
+   * The value of {@link System#nanoTime()} after which the search should stop, if it has a time
+   * limit.
+   */
+  private volatile long deadline;
+  private volatile boolean hasDeadline = false;
+  /**
+   * The thread that started the search, which is interrupted to cancel it.
+   */
+  private volatile Thread searchThread;
+
+  /**
+   * Starts timing a new search on the current thread, clearing any previous request to stop. As
+   * the interrupt status of the thread isn't cleared, interrupting it stops the search even if
+   * that happened before it started.
+   *
+   * @param timeLimit How long the search can run for, or {@code null} if it can run until it has
+   *                  finished
+   */
+  public void start(Duration timeLimit) {
+    this.searchThread = Thread.currentThread();
+    this.isStopRequested = false;
+    if (timeLimit == null) {
+      this.hasDeadline = false;
+    } else {
+      this.deadline = System.nanoTime() + timeLimit.toNanos();
+      this.hasDeadline = true;
+    }
+  }
+
+  /**
+   * Asks the current search to stop as soon as possible.
+   */
+  public void requestStop() {
+    this.isStopRequested = true;
+  }
+
+  /**
+   * @return {@code true} if the search has been asked to stop, has been interrupted or has run out
+   * of time
+   */
+  public boolean shouldStop() {
+    // Compared by subtracting as nano times can overflow
+    return this.isStopRequested
+        || this.searchThread.isInterrupted()
+        || (this.hasDeadline && System.nanoTime() - this.deadline >= 0);
+  }
+
+  /**
+   * Waits for all the threads of the search to finish. If the waiting thread is interrupted, the
+   * search is asked to stop and is still waited for, so that it's never left running in the
+   * background. The interrupt status is then restored once every thread has finished.
+   *
+   * @param threads The threads of the search
+   */
+  public void join(List<Thread> threads) {
+    boolean isInterrupted = false;
+    for (Thread thread : threads) {
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          isInterrupted = true;
+          this.requestStop();
+        }
+      }
+    }
+
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -2,8 +2,11 @@ package nz.ac.auckland.se306.group12.scheduler;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import nz.ac.auckland.se306.group12.exceptions.IllegalGraphException;
 import nz.ac.auckland.se306.group12.models.Edge;
@@ -31,6 +34,57 @@ public class TopologicalSorter {
     return topologicalOrder;
   }
 
+  /**
+   * Finds the topological order where, whenever there is a choice of which task comes next, the
+   * ready task with the lowest index is chosen. This is Kahn's algorithm with a priority queue.
+   * Tasks with the same parents therefore always appear in index order relative to each other.
+   *
+   * @param graph The dependence task graph (a DAG) for which a topological order is to be found.
+   * @return A list of the {@link Task}s from the input graph, in a topological order.
+   * @throws IllegalGraphException If given a cyclic digraph.
+   */
+  public List<Task> getLowestIndexFirstTopologicalOrder(Graph graph) {
+    return this.getPrioritisedTopologicalOrder(graph, Comparator.comparingInt(Task::getIndex));
+  }
+
+  /**
+   * Finds the topological order where, whenever there is a choice of which task comes next, the
+   * ready task that comes first in the given priority order is chosen. This is Kahn's algorithm
+   * with a priority queue.
+   *
+   * @param graph    The dependence task graph (a DAG) for which a topological order is to be found.
+   * @param priority The order in which to choose between ready tasks
+   * @return A list of the {@link Task}s from the input graph, in a topological order.
+   * @throws IllegalGraphException If given a cyclic digraph.
+   */
+  public List<Task> getPrioritisedTopologicalOrder(Graph graph, Comparator<Task> priority) {
+    int[] unvisitedParentCounts = new int[graph.taskCount()];
+    Queue<Task> readyTasks = new PriorityQueue<>(priority);
+    for (Task task : graph.getTasks()) {
+      unvisitedParentCounts[task.getIndex()] = task.getIncomingEdges().size();
+      if (task.isSource()) {
+        readyTasks.add(task);
+      }
+    }
+
+    List<Task> topologicalOrder = new ArrayList<>(graph.taskCount());
+    while (!readyTasks.isEmpty()) {
+      Task task = readyTasks.poll();
+      topologicalOrder.add(task);
+      for (Edge edge : task.getOutgoingEdges()) {
+        Task child = edge.getDestination();
+        if (--unvisitedParentCounts[child.getIndex()] == 0) {
+          readyTasks.add(child);
+        }
+      }
+    }
+
+    if (topologicalOrder.size() != graph.taskCount()) {
+      throw new IllegalGraphException("The task graph contains a cycle.");
+    }
+    return topologicalOrder;
+  }
+
   /**
    * This method finds a reverse topological order of tasks in the given dependence {@link Graph},
    * which is assumed to be a directed acyclic graph (DAG). A reverse topological order represents
@@ -12,6 +12,7 @@ import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Schedule;
 import nz.ac.auckland.se306.group12.models.ScheduledTask;
 import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
 import nz.ac.auckland.se306.group12.monitors.ResourceMonitor;
 import nz.ac.auckland.se306.group12.scheduler.Scheduler;
 import nz.ac.auckland.se306.group12.visualizer.util.AnsiColor;
@@ -102,13 +103,15 @@ public class TerminalVisualizer implements Visualizer {
   /**
    * If the visualiser could run instantaneously, then this field would be redundant. However, if
    * methods in this class independently access {@link #scheduler}, then they may receive different
-   * data. This results in a single visualisation "snapshot" showing internally inconsistent
-   * information.
+   * data. This results in a single frame showing internally inconsistent information, so the
+   * scheduler's latest {@link SearchSnapshot} is read once per frame and everything is drawn from
+   * it.
    */
+  private SearchSnapshot snapshot = SearchSnapshot.IDLE;
   private SchedulerStatus schedulerStatus;
   /**
    * The schedule to be rendered graphically (or... terminally?). Kept as a field and updated with
-   * each visualisation cycle for the same reason as {@link #schedulerStatus}.
+   * each visualisation cycle for the same reason as {@link #snapshot}.
    */
   private Schedule schedule;
 
@@ -163,8 +166,11 @@ public class TerminalVisualizer implements Visualizer {
     this.eraseDisplay();
 
     // Get latest data
-    this.schedulerStatus = scheduler.getStatus();
-    this.schedule = scheduler.getBestSchedule();
+    this.snapshot = scheduler.getSnapshot();
+    this.schedulerStatus = this.snapshot.status();
+    // Searches like A* only find a complete schedule at the very end, so show the partial schedule
+    // they're currently expanding until then
+    this.schedule = this.snapshot.bestSchedule();
     this.updateDimensions();
 
     // Prepare frame
@@ -623,8 +629,9 @@ public class TerminalVisualizer implements Visualizer {
 
   private void drawStatistics() {
     // Determine lengths (widths) of each chip
-    final String searchCountChip = String.format("  %,d searched  ", scheduler.getSearchedCount());
-    final String pruneCountChip = String.format("  %,d pruned  ", scheduler.getPrunedCount());
+    final String searchCountChip = String.format("  %,d searched  ",
+        this.snapshot.searchedCount());
+    final String pruneCountChip = String.format("  %,d pruned  ", this.snapshot.prunedCount());
     final String makespanChip = String.format("  %,d  ", schedule.getLatestEndTime());
 
     sb.append("Schedules "); // Length 10
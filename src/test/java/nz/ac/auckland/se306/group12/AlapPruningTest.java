@@ -0,0 +1,154 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduleWithAnEmptyProcessor;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.models.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests pruning partial schedules where a task can no longer start by its ALAP start time, on its
+ * own. The search tree is enumerated in full without any other pruning, once without the rule and
+ * once with it given an incumbent, so that any difference in the best makespan can only be caused
+ * by the ALAP start times.
+ *
+ * @see Schedule#isPastAlapStartTimes(int[], Graph)
+ */
+class AlapPruningTest {
+
+  private int bestMakespan;
+  private long searchedCount;
+  private long prunedCount;
+
+  /**
+   * Enumerates every complete schedule reachable from the partial schedule, recording the best
+   * makespan and the number of schedules visited. If ALAP start times are given, any partial
+   * schedule which is past them is cut, after checking that none of its completions could have
+   * beaten the incumbent they were computed from.
+   *
+   * @param graph             The graph being scheduled
+   * @param schedule          The partial schedule to expand
+   * @param alapStartTimes    The ALAP start times to prune with, or {@code null} to not prune
+   * @param incumbentMakespan The makespan the ALAP start times were computed from
+   */
+  private void search(Graph graph, Schedule schedule, int[] alapStartTimes,
+      int incumbentMakespan) {
+    this.searchedCount++;
+    if (schedule.getScheduledTaskCount() == graph.taskCount()) {
+      this.bestMakespan = Math.min(this.bestMakespan, schedule.getLatestEndTime());
+      return;
+    }
+
+    if (schedule.isPastAlapStartTimes(alapStartTimes, graph)) {
+      this.prunedCount++;
+      Assertions.assertTrue(this.findBestMakespan(graph, schedule) >= incumbentMakespan,
+          "A schedule which could beat the incumbent was pruned");
+      return;
+    }
+
+    for (Task task : schedule.getReadyTasks()) {
+      int[] latestStartTimes = schedule.getLatestStartTimesOf(task);
+      for (int i = 0; i < schedule.getAllocableProcessorCount(); i++) {
+        int startTime = Math.max(latestStartTimes[i], schedule.getProcessorEndTimes()[i]);
+        this.search(graph, schedule.extendWithTask(
+                new ScheduledTask(startTime, startTime + task.getWeight(), i), task),
+            alapStartTimes, incumbentMakespan);
+      }
+    }
+  }
+
+  /**
+   * Finds the best makespan of any completion of the partial schedule, without any pruning and
+   * without changing the counts of the search it's called from.
+   *
+   * @param graph    The graph being scheduled
+   * @param schedule The partial schedule to complete
+   * @return The best makespan of any completion
+   */
+  private int findBestMakespan(Graph graph, Schedule schedule) {
+    int outerBestMakespan = this.bestMakespan;
+    long outerSearchedCount = this.searchedCount;
+    this.bestMakespan = Integer.MAX_VALUE;
+    this.search(graph, schedule, null, Integer.MAX_VALUE);
+
+    int subtreeBestMakespan = this.bestMakespan;
+    this.bestMakespan = outerBestMakespan;
+    this.searchedCount = outerSearchedCount;
+    return subtreeBestMakespan;
+  }
+
+  /**
+   * Given an incumbent one worse than optimal, the ALAP start times should never cut the optimal
+   * schedule, but should cut some of the others and so search fewer schedules.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "./graphs/test1.dot",
+      "./graphs/test_multiple_parents.dot",
+      "./graphs/Nodes_7_OutTree.dot"
+  })
+  void testPruningKeepsOptimalMakespan(String path) {
+    Graph graph = TestUtil.loadGraph(path);
+    for (int processorCount = 2; processorCount <= 3; processorCount++) {
+      Schedule root = new ScheduleWithAnEmptyProcessor(graph, processorCount);
+      String message = String.format("%s with %d processors", path, processorCount);
+
+      this.bestMakespan = Integer.MAX_VALUE;
+      this.searchedCount = 0;
+      this.search(graph, root, null, Integer.MAX_VALUE);
+      int optimalMakespan = this.bestMakespan;
+      long fullSearchedCount = this.searchedCount;
+
+      int incumbentMakespan = optimalMakespan + 1;
+      this.bestMakespan = Integer.MAX_VALUE;
+      this.searchedCount = 0;
+      this.prunedCount = 0;
+      this.search(graph, root, graph.getAlapStartTimes(incumbentMakespan), incumbentMakespan);
+
+      Assertions.assertEquals(optimalMakespan, this.bestMakespan, message);
+      Assertions.assertTrue(this.prunedCount > 0, message);
+      Assertions.assertTrue(this.searchedCount < fullSearchedCount,
+          String.format("%s: %d schedules searched with ALAP pruning, and %d without it",
+              message, this.searchedCount, fullSearchedCount));
+    }
+  }
+
+  /**
+   * The ALAP start time of a task leaves just enough time for its longest path to a sink to finish
+   * one before the incumbent's makespan. In this chain of A, B, C, D and E, E must start by 11 to
+   * beat a makespan of 14, and each earlier task must finish before the next one has to start.
+   */
+  @Test
+  void testAlapStartTimesOfChain() {
+    Graph graph = TestUtil.loadGraph("./graphs/test1.dot");
+
+    Assertions.assertArrayEquals(new int[]{1, 3, 6, 7, 11}, graph.getAlapStartTimes(14));
+    Assertions.assertNull(graph.getAlapStartTimes(Integer.MAX_VALUE));
+  }
+
+  /**
+   * The chain takes 12 on one processor. Starting A at 0 can still beat a makespan of 13, but
+   * delaying it to 1 can't, and the ALAP start times should catch this before anything else is
+   * scheduled.
+   */
+  @Test
+  void testDelayedStartIsPastAlapStartTimes() {
+    Graph graph = TestUtil.loadGraph("./graphs/test1.dot");
+    Task a = graph.getTask("A");
+    Schedule root = new ScheduleWithAnEmptyProcessor(graph, 1);
+    int[] alapStartTimes = graph.getAlapStartTimes(13);
+
+    Assertions.assertFalse(root.isPastAlapStartTimes(alapStartTimes, graph));
+    Assertions.assertFalse(root.extendWithTask(new ScheduledTask(0, 2, 0), a)
+        .isPastAlapStartTimes(alapStartTimes, graph));
+    Assertions.assertTrue(root.extendWithTask(new ScheduledTask(1, 3, 0), a)
+        .isPastAlapStartTimes(alapStartTimes, graph));
+    Assertions.assertFalse(root.extendWithTask(new ScheduledTask(1, 3, 0), a)
+        .isPastAlapStartTimes(null, graph));
+  }
+
+}
@@ -0,0 +1,111 @@
+package nz.ac.auckland.se306.group12;
+
+import java.util.List;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests that every optimal scheduler finds the optimal makespan on a reduced set of graphs. These
+ * cover most of the graph structures in the optimal graph sets without taking too long to run.
+ */
+class AllSchedulersOptimalTest {
+
+  private static final List<OptimalCase> SMALL_GRAPHS = List.of(
+      new OptimalCase("./graphs/Nodes_7_OutTree.dot", 2, 28),
+      new OptimalCase("./graphs/Nodes_7_OutTree.dot", 4, 22),
+      new OptimalCase("./graphs/Nodes_8_Random.dot", 2, 581),
+      new OptimalCase("./graphs/Nodes_8_Random.dot", 4, 581),
+      new OptimalCase("./graphs/Nodes_9_SeriesParallel.dot", 2, 55),
+      new OptimalCase("./graphs/Nodes_9_SeriesParallel.dot", 4, 55),
+      new OptimalCase("./graphs/Nodes_10_Random.dot", 2, 50),
+      new OptimalCase("./graphs/Nodes_10_Random.dot", 4, 50),
+      new OptimalCase("./graphs/Nodes_11_OutTree.dot", 2, 350),
+      new OptimalCase("./graphs/Nodes_11_OutTree.dot", 4, 227)
+  );
+
+  private static final String TEN_NODES = "./graphs/optimal/10-nodes/";
+  private static final List<OptimalCase> TEN_NODE_GRAPHS = List.of(
+      new OptimalCase(TEN_NODES
+          + "Fork_Join_Nodes_10_CCR_0.10_WeightType_Random#1_Homogeneous-2.dot", 2, 548),
+      new OptimalCase(TEN_NODES
+          + "Fork_Nodes_10_CCR_10.00_WeightType_Random_GB_Homogeneous-2.dot", 2, 47),
+      new OptimalCase(TEN_NODES
+          + "InTree-Balanced-MaxBf-3_Nodes_10_CCR_0.99_WeightType_Random_Homogeneous-6.dot", 6, 29),
+      new OptimalCase(TEN_NODES
+          + "Join_Nodes_10_CCR_0.10_WeightType_Random#7_Homogeneous-6.dot", 6, 163),
+      new OptimalCase(TEN_NODES
+          + "OutTree-Unbalanced-MaxBf-3_Nodes_10_CCR_0.10_WeightType_Random_GB_Homogeneous-4.dot",
+          4, 280),
+      new OptimalCase(TEN_NODES
+          + "Pipeline_Nodes_10_CCR_10.00_WeightType_Random_GB_Homogeneous-4.dot", 1, 50),
+      new OptimalCase(TEN_NODES
+          + "Random_Nodes_10_Density_1.90_CCR_0.98_WeightType_Random_Homogeneous-4.dot", 4, 86),
+      new OptimalCase(TEN_NODES
+          + "SeriesParallel-MaxBf-3_Nodes_10_CCR_0.10_WeightType_Random#3_Homogeneous-6.dot",
+          3, 330),
+      new OptimalCase(TEN_NODES
+          + "Stencil_Nodes_10_CCR_1.97_WeightType_Random_GB_Homogeneous-8.dot", 3, 57)
+  );
+
+  private static final String SIXTEEN_NODES = "./graphs/optimal/16-nodes/";
+  private static final List<OptimalCase> SIXTEEN_NODE_GRAPHS = List.of(
+      new OptimalCase(SIXTEEN_NODES
+          + "Fork_Nodes_16_CCR_0.98_WeightType_Random#1_Homogeneous-2.dot", 2, 49),
+      new OptimalCase(SIXTEEN_NODES
+          + "Join_Nodes_16_CCR_0.10_WeightType_Random#6_Homogeneous-6.dot", 6, 234),
+      new OptimalCase(SIXTEEN_NODES
+          + "Pipeline_Nodes_16_CCR_0.97_WeightType_Random_Homogeneous-4.dot", 4, 83)
+  );
+
+  /**
+   * Schedules each graph with the scheduler and checks that the schedule is valid and optimal.
+   *
+   * @param scheduler The scheduler to test
+   * @param cases     The graphs to schedule, with their optimal makespans
+   */
+  private void assertOptimal(Scheduler scheduler, List<OptimalCase> cases) {
+    for (OptimalCase optimalCase : cases) {
+      Graph graph = TestUtil.loadGraph(optimalCase.path());
+      Schedule schedule = scheduler.schedule(graph, optimalCase.processorCount());
+
+      ScheduleValidator.assertValidSchedule(schedule, graph);
+      Assertions.assertEquals(optimalCase.makespan(), schedule.getLatestEndTime(), String.format(
+          "%s on %s with %d processors", scheduler.getHumanReadableName(), optimalCase.path(),
+          optimalCase.processorCount()));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testSmallGraphs(Scheduler scheduler) {
+    this.assertOptimal(scheduler, SMALL_GRAPHS);
+  }
+
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testTenNodeGraphs(Scheduler scheduler) {
+    this.assertOptimal(scheduler, TEN_NODE_GRAPHS);
+  }
+
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testSixteenNodeGraphs(Scheduler scheduler) {
+    this.assertOptimal(scheduler, SIXTEEN_NODE_GRAPHS);
+  }
+
+  /**
+   * A graph with a known optimal makespan on a given number of processors.
+   *
+   * @param path           The path to the graph
+   * @param processorCount The number of processors to schedule on
+   * @param makespan       The optimal makespan
+   */
+  private record OptimalCase(String path, int processorCount, int makespan) {
+
+  }
+
+}
@@ -0,0 +1,65 @@
+package nz.ac.auckland.se306.group12;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import nz.ac.auckland.se306.group12.models.Allocation;
+import nz.ac.auckland.se306.group12.models.Graph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the allocation of tasks to processors used by the allocation-ordering schedulers.
+ */
+class AllocationTest {
+
+  /**
+   * Allocates every task by always taking the most promising child allocation.
+   *
+   * @param graph          The graph to allocate
+   * @param processorCount The number of processors to allocate to
+   * @return The complete allocation
+   */
+  private Allocation allocateGreedily(Graph graph, int processorCount) {
+    Queue<Allocation> stack = Collections.asLifoQueue(new ArrayDeque<>());
+    Allocation allocation = new Allocation(graph, processorCount);
+    while (!allocation.isComplete()) {
+      stack.clear();
+      allocation.extendAllocation(stack, null);
+      allocation = stack.remove();
+    }
+    return allocation;
+  }
+
+  /**
+   * Tasks with an index of 64 or more don't fit in a single word of the processor bitmasks, so
+   * they shouldn't be mixed up with the tasks 64 places before them.
+   */
+  @Test
+  void testAllocationWithMoreThan64Tasks() {
+    int taskCount = 150;
+    Graph graph = new Graph();
+    for (int i = 0; i < taskCount; i++) {
+      graph.addTask("t" + i, 1 + i % 7);
+      if (i > 0) {
+        graph.addEdge("t" + (i - 1), "t" + i, 1);
+      }
+    }
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+
+    Allocation allocation = this.allocateGreedily(graph, 3);
+
+    int allocatedTaskCount = 0;
+    for (int processorIndex = 0; processorIndex < allocation.getProcessorCount();
+        processorIndex++) {
+      allocatedTaskCount += allocation.getProcessorTaskCount(processorIndex);
+    }
+    Assertions.assertEquals(taskCount, allocatedTaskCount);
+    // A chain can't finish before every task has run one after another
+    Assertions.assertTrue(
+        allocation.getAllocationHeuristic() >= graph.getTotalTaskWeights());
+  }
+
+}
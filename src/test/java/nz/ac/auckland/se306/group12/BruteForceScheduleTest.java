@@ -0,0 +1,161 @@
+package nz.ac.auckland.se306.group12;
+
+import java.util.List;
+import java.util.Random;
+import nz.ac.auckland.se306.group12.models.Edge;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.scheduler.AStarScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the schedulers against a brute force search on small random graphs. The schedulers prune
+ * with the closed set, equivalent tasks, fixed task orders, partial-order reduction of
+ * transpositions and dominance all at once, and any combination of these which isn't sound shows
+ * up here as a makespan that's worse than the brute force one.
+ */
+class BruteForceScheduleTest {
+
+  private static final int GRAPH_COUNT = 150;
+  private static final int MAX_TASK_COUNT = 7;
+  private static final int MAX_PROCESSOR_COUNT = 3;
+
+  private int bestMakespan;
+
+  /**
+   * Generates a random graph with the given number of tasks. Task weights are often small so that
+   * there are lots of ties in start times, and the communication costs are sometimes small so that
+   * it can be worth running dependent tasks on different processors.
+   *
+   * @param random    The random number generator to use
+   * @param taskCount The number of tasks in the graph
+   * @return The preprocessed random graph
+   */
+  private Graph createRandomGraph(Random random, int taskCount) {
+    Graph graph = new Graph();
+    for (int i = 0; i < taskCount; i++) {
+      int weight = random.nextInt(4) == 0 ? random.nextInt(2) + 1 : random.nextInt(9) + 1;
+      graph.addTask("t" + i, weight);
+    }
+
+    int shape = random.nextInt(5);
+    int maxEdgeWeight = random.nextInt(3) == 0 ? 2 : 10;
+    int sink = taskCount - 1;
+    for (int i = 1; i < taskCount; i++) {
+      switch (shape) {
+        case 0 -> graph.addEdge("t0", "t" + i, random.nextInt(maxEdgeWeight));
+        case 1 -> {
+          if (i < sink) {
+            graph.addEdge("t0", "t" + i, random.nextInt(maxEdgeWeight));
+            graph.addEdge("t" + i, "t" + sink, random.nextInt(maxEdgeWeight));
+          }
+        }
+        case 2 -> graph.addEdge("t" + random.nextInt(i), "t" + i, random.nextInt(maxEdgeWeight));
+        case 3 -> {
+          // Independent tasks
+        }
+        default -> {
+          for (int j = 0; j < i; j++) {
+            if (random.nextInt(3) == 0) {
+              graph.addEdge("t" + j, "t" + i, random.nextInt(maxEdgeWeight));
+            }
+          }
+        }
+      }
+    }
+
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+    return graph;
+  }
+
+  /**
+   * Finds the optimal makespan by trying every order of the tasks and every processor for each
+   * task, starting each task as early as possible after the tasks before it on its processor.
+   * Every schedule can be made at least as good by starting its tasks in this way, so this always
+   * finds the optimal makespan.
+   *
+   * @param graph          The graph to schedule
+   * @param processorCount The number of processors to schedule on
+   * @return The optimal makespan
+   */
+  private int findOptimalMakespan(Graph graph, int processorCount) {
+    int taskCount = graph.taskCount();
+    this.bestMakespan = Integer.MAX_VALUE;
+    this.search(graph, new int[taskCount], new int[taskCount], new boolean[taskCount],
+        new int[processorCount], 0, 0);
+    return this.bestMakespan;
+  }
+
+  /**
+   * Tries every way of scheduling one more ready task, then recurses until every task is
+   * scheduled. Branches which can't beat the best makespan found so far are cut.
+   */
+  private void search(Graph graph, int[] startTimes, int[] processors, boolean[] isScheduled,
+      int[] processorEndTimes, int scheduledCount, int makespan) {
+    if (makespan >= this.bestMakespan) {
+      return;
+    }
+    if (scheduledCount == graph.taskCount()) {
+      this.bestMakespan = makespan;
+      return;
+    }
+
+    for (Task task : graph.getTasks()) {
+      int taskIndex = task.getIndex();
+      boolean isReady = !isScheduled[taskIndex] && task.getIncomingEdges()
+          .stream()
+          .allMatch(edge -> isScheduled[edge.getSource().getIndex()]);
+      if (!isReady) {
+        continue;
+      }
+
+      for (int processor = 0; processor < processorEndTimes.length; processor++) {
+        int startTime = processorEndTimes[processor];
+        for (Edge edge : task.getIncomingEdges()) {
+          int parentIndex = edge.getSource().getIndex();
+          int dataReadyTime = startTimes[parentIndex] + edge.getSource().getWeight()
+              + (processors[parentIndex] == processor ? 0 : edge.getWeight());
+          startTime = Math.max(startTime, dataReadyTime);
+        }
+
+        int previousEndTime = processorEndTimes[processor];
+        isScheduled[taskIndex] = true;
+        startTimes[taskIndex] = startTime;
+        processors[taskIndex] = processor;
+        processorEndTimes[processor] = startTime + task.getWeight();
+        this.search(graph, startTimes, processors, isScheduled, processorEndTimes,
+            scheduledCount + 1, Math.max(makespan, startTime + task.getWeight()));
+        isScheduled[taskIndex] = false;
+        processorEndTimes[processor] = previousEndTime;
+      }
+    }
+  }
+
+  @Test
+  void testSchedulersMatchBruteForce() {
+    Random random = new Random(306);
+    for (int i = 0; i < GRAPH_COUNT; i++) {
+      Graph graph = this.createRandomGraph(random, 3 + random.nextInt(MAX_TASK_COUNT - 2));
+      int processorCount = 1 + random.nextInt(MAX_PROCESSOR_COUNT);
+      int optimalMakespan = this.findOptimalMakespan(graph, processorCount);
+
+      for (Scheduler scheduler : List.of(new DfsScheduler(1), new DfsScheduler(4),
+          new AStarScheduler(), new DfsAOScheduler())) {
+        Schedule schedule = scheduler.schedule(graph, processorCount);
+
+        ScheduleValidator.assertValidSchedule(schedule, graph);
+        Assertions.assertEquals(optimalMakespan, schedule.getLatestEndTime(), String.format(
+            "%s on graph %d with %d processors", scheduler.getHumanReadableName(), i,
+            processorCount));
+      }
+    }
+  }
+
+}
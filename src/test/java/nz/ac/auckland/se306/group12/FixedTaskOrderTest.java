@@ -0,0 +1,184 @@
+package nz.ac.auckland.se306.group12;
+
+import java.util.Set;
+import java.util.function.Function;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduleWithAnEmptyProcessor;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests expanding only the first task in a fixed task order, on its own. The search tree is
+ * enumerated in full without any other pruning, once expanding only the tasks from
+ * {@link Schedule#getExpandableTasks()} and once expanding every ready task, so that any difference
+ * in the best makespan can only be caused by the fixed task order.
+ */
+class FixedTaskOrderTest {
+
+  private int bestMakespan;
+  private long searchedCount;
+
+  /**
+   * Creates a fork graph where A is the parent of 4 sinks, which always have a fixed order once A
+   * has been scheduled. Expanding only the last task in that order instead gives a makespan of 19
+   * rather than 15 on 2 processors.
+   *
+   * @return The fork graph
+   */
+  private Graph createForkGraph() {
+    Graph graph = new Graph();
+    graph.addTask("A", 4);
+    graph.addTask("B", 5);
+    graph.addTask("C", 5);
+    graph.addTask("D", 5);
+    graph.addTask("E", 6);
+    graph.addEdge("A", "B", 5);
+    graph.addEdge("A", "C", 1);
+    graph.addEdge("A", "D", 5);
+    graph.addEdge("A", "E", 4);
+    return this.preprocess(graph);
+  }
+
+  /**
+   * Creates a join graph where 4 sources are the parents of E, which always have a fixed order.
+   * Expanding only the last task in that order instead gives a makespan of 9 rather than 8 on 2
+   * processors.
+   *
+   * @return The join graph
+   */
+  private Graph createJoinGraph() {
+    Graph graph = new Graph();
+    graph.addTask("A", 6);
+    graph.addTask("B", 2);
+    graph.addTask("C", 1);
+    graph.addTask("D", 1);
+    graph.addTask("E", 2);
+    graph.addEdge("A", "E", 1);
+    graph.addEdge("B", "E", 4);
+    graph.addEdge("C", "E", 1);
+    graph.addEdge("D", "E", 3);
+    return this.preprocess(graph);
+  }
+
+  private Graph preprocess(Graph graph) {
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+    return graph;
+  }
+
+  /**
+   * Enumerates every complete schedule reachable by expanding the given tasks of each partial
+   * schedule, recording the best makespan and the number of schedules visited.
+   *
+   * @param schedule      The partial schedule to expand
+   * @param tasksToExpand The tasks of a partial schedule to create children for
+   * @param taskCount     The number of tasks in the graph
+   */
+  private void search(Schedule schedule, Function<Schedule, Set<Task>> tasksToExpand,
+      int taskCount) {
+    this.searchedCount++;
+    if (schedule.getScheduledTaskCount() == taskCount) {
+      this.bestMakespan = Math.min(this.bestMakespan, schedule.getLatestEndTime());
+      return;
+    }
+
+    for (Task task : tasksToExpand.apply(schedule)) {
+      int[] latestStartTimes = schedule.getLatestStartTimesOf(task);
+      for (int i = 0; i < schedule.getAllocableProcessorCount(); i++) {
+        int startTime = Math.max(latestStartTimes[i], schedule.getProcessorEndTimes()[i]);
+        this.search(schedule.extendWithTask(
+                new ScheduledTask(startTime, startTime + task.getWeight(), i), task),
+            tasksToExpand, taskCount);
+      }
+    }
+  }
+
+  /**
+   * Checks that the fixed task order keeps the same best makespan as branching on every ready task,
+   * which is also found by the {@link DfsScheduler}, while searching fewer schedules.
+   *
+   * @param graph          The graph to schedule
+   * @param processorCount The number of processors to schedule on
+   * @return The optimal makespan
+   */
+  private int assertFixedOrderIsOptimal(Graph graph, int processorCount) {
+    this.bestMakespan = Integer.MAX_VALUE;
+    this.searchedCount = 0;
+    this.search(new ScheduleWithAnEmptyProcessor(graph, processorCount), Schedule::getReadyTasks,
+        graph.taskCount());
+    int optimalMakespan = this.bestMakespan;
+    long fullSearchedCount = this.searchedCount;
+
+    this.bestMakespan = Integer.MAX_VALUE;
+    this.searchedCount = 0;
+    this.search(new ScheduleWithAnEmptyProcessor(graph, processorCount),
+        Schedule::getExpandableTasks, graph.taskCount());
+
+    Assertions.assertEquals(optimalMakespan, this.bestMakespan);
+    Assertions.assertTrue(this.searchedCount < fullSearchedCount,
+        this.searchedCount + " schedules searched with a fixed order, and "
+            + fullSearchedCount + " without it");
+    Assertions.assertEquals(optimalMakespan,
+        new DfsScheduler().schedule(graph, processorCount).getLatestEndTime());
+    return optimalMakespan;
+  }
+
+  @Test
+  void testForkHasFixedOrder() {
+    Graph graph = this.createForkGraph();
+    Schedule schedule = new ScheduleWithAnEmptyProcessor(graph, 2);
+    Task a = graph.getTask("A");
+    schedule = schedule.extendWithTask(new ScheduledTask(0, a.getWeight(), 0), a);
+
+    // B and D are equivalent, so D only becomes ready once B has been scheduled
+    Assertions.assertEquals(3, schedule.getReadyTasks().size());
+    Assertions.assertEquals(1, schedule.getExpandableTasks().size());
+  }
+
+  @Test
+  void testForkIsOptimal() {
+    Graph graph = this.createForkGraph();
+    Assertions.assertEquals(25, this.assertFixedOrderIsOptimal(graph, 1));
+    Assertions.assertEquals(15, this.assertFixedOrderIsOptimal(graph, 2));
+    this.assertFixedOrderIsOptimal(graph, 3);
+  }
+
+  @Test
+  void testJoinHasFixedOrder() {
+    Schedule schedule = new ScheduleWithAnEmptyProcessor(this.createJoinGraph(), 2);
+
+    Assertions.assertEquals(4, schedule.getReadyTasks().size());
+    Assertions.assertEquals(1, schedule.getExpandableTasks().size());
+  }
+
+  @Test
+  void testJoinIsOptimal() {
+    Graph graph = this.createJoinGraph();
+    Assertions.assertEquals(12, this.assertFixedOrderIsOptimal(graph, 1));
+    Assertions.assertEquals(8, this.assertFixedOrderIsOptimal(graph, 2));
+    this.assertFixedOrderIsOptimal(graph, 3);
+  }
+
+  /**
+   * Ready tasks with different children don't have a fixed order, so all of them are expanded.
+   */
+  @Test
+  void testNoFixedOrderWithDifferentChildren() {
+    Graph graph = new Graph();
+    graph.addTask("A", 2);
+    graph.addTask("B", 3);
+    graph.addTask("C", 1);
+    graph.addTask("D", 4);
+    graph.addEdge("A", "C", 1);
+    graph.addEdge("B", "D", 2);
+    Schedule schedule = new ScheduleWithAnEmptyProcessor(this.preprocess(graph), 2);
+
+    Assertions.assertEquals(2, schedule.getExpandableTasks().size());
+  }
+
+}
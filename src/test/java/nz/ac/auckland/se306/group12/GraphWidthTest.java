@@ -0,0 +1,126 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.models.Graph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the width of a graph, and the number of processors that are searched because of it.
+ */
+class GraphWidthTest {
+
+  /**
+   * Creates a graph with a root task A that every other given task depends on.
+   *
+   * @param edgeWeight The communication cost of every edge
+   * @param children   The labels of the tasks that depend on A
+   * @return The fork graph
+   */
+  private Graph createFork(int edgeWeight, String... children) {
+    Graph graph = new Graph();
+    graph.addTask("A", 1);
+    for (String child : children) {
+      graph.addTask(child, 1);
+      graph.addEdge("A", child, edgeWeight);
+    }
+    graph.setWidth();
+    return graph;
+  }
+
+  @Test
+  void testForkWidth() {
+    Graph graph = this.createFork(0, "B", "C", "D");
+    Assertions.assertEquals(3, graph.getWidth());
+  }
+
+  @Test
+  void testJoinWidth() {
+    Graph graph = new Graph();
+    for (String parent : new String[]{"A", "B", "C", "D"}) {
+      graph.addTask(parent, 1);
+    }
+    graph.addTask("E", 1);
+    for (String parent : new String[]{"A", "B", "C", "D"}) {
+      graph.addEdge(parent, "E", 2);
+    }
+    graph.setWidth();
+
+    Assertions.assertEquals(4, graph.getWidth());
+  }
+
+  @Test
+  void testChainWidth() {
+    Graph graph = new Graph();
+    graph.addTask("A", 1);
+    graph.addTask("B", 2);
+    graph.addTask("C", 3);
+    graph.addTask("D", 4);
+    graph.addEdge("A", "B", 1);
+    graph.addEdge("B", "C", 1);
+    graph.addEdge("C", "D", 1);
+    // A redundant edge shouldn't change anything, as the tasks are already ordered
+    graph.addEdge("A", "D", 1);
+    graph.setWidth();
+
+    Assertions.assertEquals(1, graph.getWidth());
+  }
+
+  @Test
+  void testIndependentWidth() {
+    Graph graph = new Graph();
+    for (String task : new String[]{"A", "B", "C", "D", "E"}) {
+      graph.addTask(task, 1);
+    }
+    graph.setWidth();
+
+    Assertions.assertEquals(5, graph.getWidth());
+  }
+
+  /**
+   * The width is the largest set of independent tasks, which isn't always the largest level of the
+   * graph. Here B, C and E are independent of each other, even though they're at different depths.
+   */
+  @Test
+  void testWidthAcrossLevels() {
+    Graph graph = new Graph();
+    for (String task : new String[]{"A", "B", "C", "D", "E", "F"}) {
+      graph.addTask(task, 1);
+    }
+    graph.addEdge("A", "B", 1);
+    graph.addEdge("A", "C", 1);
+    graph.addEdge("A", "D", 1);
+    graph.addEdge("D", "E", 1);
+    graph.addEdge("B", "F", 1);
+    graph.addEdge("C", "F", 1);
+    graph.addEdge("E", "F", 1);
+    graph.setWidth();
+
+    Assertions.assertEquals(3, graph.getWidth());
+  }
+
+  /**
+   * The diamond A, B, C, D has a width of 2, and the separate chain E, F adds one more.
+   */
+  @Test
+  void testDisjointGraphsWidth() {
+    Graph graph = TestUtil.loadGraph("./graphs/test_disjoint_graphs.dot");
+    Assertions.assertEquals(3, graph.getWidth());
+  }
+
+  /**
+   * The processors should only be capped at the width of the graph when there are no communication
+   * costs, as otherwise an optimal schedule can need more processors than the width.
+   */
+  @Test
+  void testEffectiveProcessorCountOnlyCapsCommunicationFreeGraphs() {
+    Graph communicationFreeGraph = this.createFork(0, "B", "C", "D");
+    Assertions.assertEquals(3, communicationFreeGraph.getEffectiveProcessorCount(8));
+    Assertions.assertEquals(2, communicationFreeGraph.getEffectiveProcessorCount(2));
+
+    Graph communicatingGraph = this.createFork(5, "B", "C", "D");
+    Assertions.assertEquals(3, communicatingGraph.getWidth());
+    Assertions.assertEquals(4, communicatingGraph.getEffectiveProcessorCount(8));
+    Assertions.assertEquals(2, communicatingGraph.getEffectiveProcessorCount(2));
+  }
+
+}
@@ -0,0 +1,89 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests finding the non-empty processors which are interchangeable with a lower index processor,
+ * so that only one of them needs to be expanded.
+ */
+class InterchangeableProcessorsTest {
+
+  /**
+   * Creates a graph of three independent tasks A, B and C which all take 2, where C is the parent
+   * of D. C is then a frontier task of any partial schedule that hasn't scheduled D.
+   *
+   * @return The graph
+   */
+  private Graph createGraph() {
+    Graph graph = new Graph();
+    graph.addTask("A", 2);
+    graph.addTask("B", 2);
+    graph.addTask("C", 2);
+    graph.addTask("D", 1);
+    graph.addEdge("C", "D", 1);
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+    return graph;
+  }
+
+  /**
+   * Creates a partial schedule on three processors of the two given tasks, which are both started
+   * at 0 on the first two processors.
+   *
+   * @param graph  The graph being scheduled
+   * @param first  The name of the task to schedule on the first processor
+   * @param second The name of the task to schedule on the second processor
+   * @return The partial schedule
+   */
+  private Schedule createSchedule(Graph graph, String first, String second) {
+    return new Schedule(graph, 3)
+        .extendWithTask(new ScheduledTask(0, 2, 0), graph.getTask(first))
+        .extendWithTask(new ScheduledTask(0, 2, 1), graph.getTask(second));
+  }
+
+  /**
+   * A and B end at the same time and no unscheduled task needs their data, so scheduling the next
+   * task after either gives the same schedule up to relabelling. Only the higher index processor
+   * should be marked, so that the lower index one is still expanded. The empty processor is left to
+   * the existing symmetry breaking for empty processors.
+   */
+  @Test
+  void testFrontierFreeProcessorsWithSameEndTimeAreInterchangeable() {
+    Graph graph = this.createGraph();
+    Schedule schedule = this.createSchedule(graph, "A", "B");
+
+    Assertions.assertArrayEquals(new boolean[]{false, true, false},
+        schedule.getInterchangeableProcessors(graph));
+  }
+
+  /**
+   * D needs data from C, so it can start earlier on C's processor than on A's. The processors end
+   * at the same time but aren't interchangeable.
+   */
+  @Test
+  void testProcessorWithFrontierTaskIsNotInterchangeable() {
+    Graph graph = this.createGraph();
+
+    Assertions.assertArrayEquals(new boolean[]{false, false, false},
+        this.createSchedule(graph, "A", "C").getInterchangeableProcessors(graph));
+    Assertions.assertArrayEquals(new boolean[]{false, false, false},
+        this.createSchedule(graph, "C", "A").getInterchangeableProcessors(graph));
+  }
+
+  @Test
+  void testProcessorsWithDifferentEndTimesAreNotInterchangeable() {
+    Graph graph = this.createGraph();
+    Schedule schedule = new Schedule(graph, 3)
+        .extendWithTask(new ScheduledTask(0, 2, 0), graph.getTask("A"))
+        .extendWithTask(new ScheduledTask(1, 3, 1), graph.getTask("B"));
+
+    Assertions.assertArrayEquals(new boolean[]{false, false, false},
+        schedule.getInterchangeableProcessors(graph));
+  }
+
+}
@@ -0,0 +1,157 @@
+package nz.ac.auckland.se306.group12;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.scheduler.AStarScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.LocalSearchImprover;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests that the schedules found by the {@link LocalSearchImprover} are always valid, and that
+ * schedulers only accept offered incumbents which beat their current one.
+ */
+class LocalSearchImproverTest {
+
+  private static final String LARGE_GRAPH =
+      "./graphs/optimal/21-nodes/Fork_Join_Nodes_21_CCR_0.10_WeightType_Random#4_Homogeneous-2.dot";
+
+  /**
+   * The list schedule the improver starts from should be valid on any number of processors.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 8})
+  void testListScheduleIsValid(int processorCount) {
+    for (String path : List.of("./graphs/Nodes_7_OutTree.dot", "./graphs/Nodes_10_Random.dot",
+        "./graphs/test_disjoint_graphs.dot", LARGE_GRAPH)) {
+      Graph graph = TestUtil.loadGraph(path);
+      LocalSearchImprover improver = new LocalSearchImprover(graph, new DfsScheduler(1),
+          processorCount);
+
+      Schedule listSchedule = improver.getListSchedule();
+
+      ScheduleValidator.assertValidSchedule(listSchedule, graph);
+      Assertions.assertTrue(listSchedule.getProcessorEndTimes().length <= processorCount);
+    }
+  }
+
+  /**
+   * Every schedule the improver offers while hill climbing alongside a scheduler should be valid,
+   * and none of them should be better than the schedule the scheduler returns.
+   */
+  @Test
+  void testImprovedSchedulesAreValid() throws InterruptedException {
+    Graph graph = TestUtil.loadGraph(LARGE_GRAPH);
+    List<Schedule> offeredSchedules = new CopyOnWriteArrayList<>();
+    Scheduler scheduler = new DfsScheduler(1) {
+      @Override
+      public boolean offerIncumbent(Schedule schedule) {
+        offeredSchedules.add(schedule);
+        return super.offerIncumbent(schedule);
+      }
+    };
+    Thread improverThread = new Thread(new LocalSearchImprover(graph, scheduler, 4));
+    improverThread.start();
+
+    Schedule schedule = scheduler.schedule(graph, 4, Duration.ofMillis(500));
+    improverThread.join();
+
+    // At least the list schedule is offered, followed by any improvements on it
+    Assertions.assertFalse(offeredSchedules.isEmpty());
+    for (Schedule offeredSchedule : offeredSchedules) {
+      ScheduleValidator.assertValidSchedule(offeredSchedule, graph);
+      Assertions.assertTrue(schedule.getLatestEndTime() <= offeredSchedule.getLatestEndTime());
+    }
+  }
+
+  /**
+   * An improver for a scheduler that has already been used should wait for the scheduler's next
+   * run to start, rather than offering its list schedule straight away and having it discarded
+   * when the next run resets the scheduler.
+   */
+  @Test
+  void testImproverWaitsForNextRunOfReusedScheduler() throws InterruptedException {
+    Graph graph = TestUtil.loadGraph(LARGE_GRAPH);
+    List<SchedulerStatus> offeredStatuses = new CopyOnWriteArrayList<>();
+    Scheduler scheduler = new DfsScheduler(1) {
+      @Override
+      public boolean offerIncumbent(Schedule schedule) {
+        offeredStatuses.add(this.getStatus());
+        return super.offerIncumbent(schedule);
+      }
+    };
+    scheduler.schedule(graph, 4, Duration.ofMillis(100));
+    offeredStatuses.clear();
+
+    Thread improverThread = new Thread(new LocalSearchImprover(graph, scheduler, 4));
+    improverThread.start();
+    // Long enough for the improver to have offered something if it didn't wait
+    Thread.sleep(200);
+    Assertions.assertTrue(offeredStatuses.isEmpty());
+    Assertions.assertTrue(improverThread.isAlive());
+
+    Schedule schedule = scheduler.schedule(graph, 4, Duration.ofMillis(500));
+    improverThread.join();
+
+    ScheduleValidator.assertValidSchedule(schedule, graph);
+    Assertions.assertFalse(offeredStatuses.isEmpty());
+    for (SchedulerStatus status : offeredStatuses) {
+      Assertions.assertEquals(SchedulerStatus.SCHEDULING, status);
+    }
+  }
+
+  /**
+   * Re-timing a schedule onto fewer processors should fold the extra processors back onto the
+   * remaining ones and still give a valid schedule.
+   */
+  @Test
+  void testRetimedScheduleIsValid() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_11_OutTree.dot");
+    Schedule schedule = new DfsScheduler(1).schedule(graph, 4);
+
+    for (int processorCount = 1; processorCount <= 4; processorCount++) {
+      LocalSearchImprover improver = new LocalSearchImprover(graph, new DfsScheduler(1),
+          processorCount);
+
+      Schedule retimedSchedule = improver.retime(schedule);
+
+      ScheduleValidator.assertValidSchedule(retimedSchedule, graph);
+      Assertions.assertTrue(retimedSchedule.getProcessorEndTimes().length <= processorCount);
+    }
+  }
+
+  /**
+   * An offered incumbent should only be accepted if its makespan is strictly lower than the
+   * makespan of the scheduler's current incumbent.
+   */
+  @Test
+  void testOfferIncumbentOnlyAcceptsStrictImprovements() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_11_OutTree.dot");
+    Schedule sequentialSchedule = new LocalSearchImprover(graph, new DfsScheduler(1), 1)
+        .getListSchedule();
+    Schedule listSchedule = new LocalSearchImprover(graph, new DfsScheduler(1), 4)
+        .getListSchedule();
+    Schedule optimalSchedule = new DfsScheduler(1).schedule(graph, 4);
+    Assertions.assertTrue(optimalSchedule.getLatestEndTime() < listSchedule.getLatestEndTime());
+    Assertions.assertTrue(listSchedule.getLatestEndTime() < sequentialSchedule.getLatestEndTime());
+
+    for (Scheduler scheduler : List.of(new DfsScheduler(1), new AStarScheduler(),
+        new DfsAOScheduler())) {
+      Assertions.assertTrue(scheduler.offerIncumbent(listSchedule));
+      Assertions.assertFalse(scheduler.offerIncumbent(listSchedule));
+      Assertions.assertFalse(scheduler.offerIncumbent(sequentialSchedule));
+      Assertions.assertTrue(scheduler.offerIncumbent(optimalSchedule));
+      Assertions.assertFalse(scheduler.offerIncumbent(listSchedule));
+    }
+  }
+
+}
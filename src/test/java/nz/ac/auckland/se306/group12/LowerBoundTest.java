@@ -0,0 +1,142 @@
+package nz.ac.auckland.se306.group12;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.scheduler.AStarScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.LocalSearchImprover;
+import nz.ac.auckland.se306.group12.scheduler.ParallelDfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.PortfolioScheduler;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import nz.ac.auckland.se306.group12.scheduler.SchedulingJob;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests the lower bound on the optimal makespan that the schedulers report when they're stopped
+ * before they finish, or allow a relative optimality gap, which is used to report how far from
+ * optimal the schedule could be. The bound has to account for the partial schedules which were
+ * never searched, so it should never be above the known optimal makespan.
+ */
+class LowerBoundTest {
+
+  /**
+   * A graph which none of the schedulers can finish searching in {@link #SEARCH_TIME}, so they are
+   * always stopped early.
+   */
+  private static final String HARD_GRAPH =
+      "./graphs/optimal/21-nodes/Fork_Join_Nodes_21_CCR_0.10_WeightType_Random#6_Homogeneous-6.dot";
+  private static final int HARD_PROCESSOR_COUNT = 6;
+  private static final int HARD_OPTIMAL_MAKESPAN = 476;
+
+  private static final Duration SEARCH_TIME = Duration.ofMillis(50);
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final double EPSILON = 0.1;
+
+  /**
+   * Returns the schedulers which allow a relative optimality gap of {@link #EPSILON}, along with a
+   * portfolio of them.
+   *
+   * @return The schedulers to test
+   */
+  private static List<Scheduler> getEpsilonSchedulers() {
+    return List.of(
+        new DfsScheduler(4, EPSILON),
+        new DfsAOScheduler(EPSILON),
+        new ParallelDfsAOScheduler(4, EPSILON),
+        new PortfolioScheduler(List.of(new DfsScheduler(2, EPSILON), new AStarScheduler(),
+            new DfsAOScheduler(EPSILON)))
+    );
+  }
+
+  /**
+   * Checks that the scheduler's lower bound is no more than the optimal makespan, and that the
+   * schedule is valid and no better than optimal. If the scheduler was stopped before it found a
+   * schedule, the list schedule is checked instead, as is output by the commandline.
+   *
+   * @param scheduler       The scheduler that was stopped
+   * @param graph           The graph that was scheduled
+   * @param processorCount  The number of processors that were scheduled on
+   * @param schedule        The schedule that was returned, which may be {@code null}
+   * @param optimalMakespan The known optimal makespan
+   */
+  private void assertBoundsAreSound(Scheduler scheduler, Graph graph, int processorCount,
+      Schedule schedule, int optimalMakespan) {
+    if (schedule == null) {
+      schedule = new LocalSearchImprover(graph, scheduler, processorCount).getListSchedule();
+    }
+    String message = scheduler.getHumanReadableName();
+
+    ScheduleValidator.assertValidSchedule(schedule, graph);
+    Assertions.assertTrue(scheduler.getLowerBound() <= optimalMakespan,
+        String.format("%s: lower bound of %d is above the optimal makespan of %d", message,
+            scheduler.getLowerBound(), optimalMakespan));
+    Assertions.assertTrue(optimalMakespan <= schedule.getLatestEndTime(), message);
+  }
+
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testTimeLimitedBoundsAreSound(Scheduler scheduler) {
+    Graph graph = TestUtil.loadGraph(HARD_GRAPH);
+    Schedule schedule = scheduler.schedule(graph, HARD_PROCESSOR_COUNT, SEARCH_TIME);
+
+    this.assertBoundsAreSound(scheduler, graph, HARD_PROCESSOR_COUNT, schedule,
+        HARD_OPTIMAL_MAKESPAN);
+  }
+
+  /**
+   * Stopping a search started with an incumbent should bound the optimal makespan by both the
+   * incumbent and the partial schedules that are left, rather than by the incumbent alone.
+   */
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testStoppedBoundsAreSound(Scheduler scheduler) throws Exception {
+    Graph graph = TestUtil.loadGraph(HARD_GRAPH);
+    Schedule listSchedule =
+        new LocalSearchImprover(graph, scheduler, HARD_PROCESSOR_COUNT).getListSchedule();
+    SchedulingJob job = scheduler.scheduleAsync(graph, HARD_PROCESSOR_COUNT, null, listSchedule);
+
+    Thread.sleep(SEARCH_TIME.toMillis());
+    job.stop();
+    Schedule schedule = job.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    Assertions.assertNotNull(schedule);
+    Assertions.assertTrue(schedule.getLatestEndTime() <= listSchedule.getLatestEndTime());
+    this.assertBoundsAreSound(scheduler, graph, HARD_PROCESSOR_COUNT, schedule,
+        HARD_OPTIMAL_MAKESPAN);
+  }
+
+  /**
+   * With an optimality gap, partial schedules are pruned against a bound below the incumbent, so
+   * the lower bound must come from that pruning bound rather than the incumbent. Once the search
+   * has finished, the schedule should be within a factor of (1 + epsilon) of the lower bound.
+   */
+  @ParameterizedTest
+  @MethodSource("getEpsilonSchedulers")
+  void testEpsilonBoundsAreSound(Scheduler scheduler) {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_10_Random.dot");
+    int processorCount = 2;
+    int optimalMakespan = new DfsScheduler().schedule(graph, processorCount).getLatestEndTime();
+    Schedule schedule = scheduler.schedule(graph, processorCount);
+
+    this.assertBoundsAreSound(scheduler, graph, processorCount, schedule, optimalMakespan);
+    Assertions.assertTrue(schedule.getLatestEndTime() <= (1 + EPSILON) * scheduler.getLowerBound(),
+        scheduler.getHumanReadableName());
+  }
+
+  @ParameterizedTest
+  @MethodSource("getEpsilonSchedulers")
+  void testTimeLimitedEpsilonBoundsAreSound(Scheduler scheduler) {
+    Graph graph = TestUtil.loadGraph(HARD_GRAPH);
+    Schedule schedule = scheduler.schedule(graph, HARD_PROCESSOR_COUNT, SEARCH_TIME);
+
+    this.assertBoundsAreSound(scheduler, graph, HARD_PROCESSOR_COUNT, schedule,
+        HARD_OPTIMAL_MAKESPAN);
+  }
+
+}
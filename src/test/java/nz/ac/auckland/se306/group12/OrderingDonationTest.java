@@ -0,0 +1,60 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.ParallelDfsAOScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests donating the largest subtrees of an ordering search to idle workers in the
+ * {@link ParallelDfsAOScheduler}, which is the only way for a worker to help with an allocation it
+ * didn't create.
+ */
+class OrderingDonationTest {
+
+  /**
+   * Whether a subtree is donated depends on when the other workers go idle, so the graph is
+   * scheduled a few times for the donations to be very unlikely to never happen.
+   */
+  private static final int RUN_COUNT = 10;
+  private static final int THREAD_COUNT = 4;
+
+  /**
+   * On 3 processors, most allocations of this graph have ordering trees that are large enough for
+   * the other workers to run out of allocations while they're searched. The donated subtrees must
+   * still be searched, so the schedule should be optimal in every run.
+   */
+  @Test
+  void testDonatedSubtreesKeepOptimalMakespan() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_10_Random.dot");
+    int processorCount = 3;
+    int optimalMakespan = new DfsScheduler().schedule(graph, processorCount).getLatestEndTime();
+
+    long donatedCount = 0;
+    for (int run = 0; run < RUN_COUNT; run++) {
+      ParallelDfsAOScheduler scheduler = new ParallelDfsAOScheduler(THREAD_COUNT);
+      Schedule schedule = scheduler.schedule(graph, processorCount);
+
+      ScheduleValidator.assertValidSchedule(schedule, graph);
+      Assertions.assertEquals(optimalMakespan, schedule.getLatestEndTime());
+      donatedCount += scheduler.getDonatedCount();
+    }
+    Assertions.assertTrue(donatedCount > 0, "No ordering subtrees were donated");
+  }
+
+  /**
+   * With a single thread there's never an idle worker to donate to.
+   */
+  @Test
+  void testNothingIsDonatedWithoutOtherWorkers() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_10_Random.dot");
+    ParallelDfsAOScheduler scheduler = new ParallelDfsAOScheduler(1);
+    Schedule schedule = scheduler.schedule(graph, 3);
+
+    ScheduleValidator.assertValidSchedule(schedule, graph);
+    Assertions.assertEquals(0, scheduler.getDonatedCount());
+  }
+
+}
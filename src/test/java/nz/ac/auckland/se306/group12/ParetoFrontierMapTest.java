@@ -0,0 +1,225 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.Schedule.Dominance;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.models.datastructures.ParetoFrontierMap;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ParetoFrontierMap} on its own, and the dominance pruning built on it using the
+ * dominance keys and vectors of partial schedules.
+ */
+class ParetoFrontierMapTest {
+
+  /**
+   * Creates a map which is big enough that nothing is ever forgotten in these tests.
+   *
+   * @return The empty map
+   */
+  private ParetoFrontierMap<String> createMap() {
+    return new ParetoFrontierMap<>(16, 16, 16);
+  }
+
+  /**
+   * Creates a graph where A and B both have to finish before C can start. Both A and B are frontier
+   * tasks of any partial schedule that hasn't scheduled C.
+   *
+   * @return The join graph
+   */
+  private Graph createJoinGraph() {
+    Graph graph = new Graph();
+    graph.addTask("A", 2);
+    graph.addTask("B", 3);
+    graph.addTask("C", 1);
+    graph.addEdge("A", "C", 4);
+    graph.addEdge("B", "C", 4);
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+    return graph;
+  }
+
+  /**
+   * Creates a partial schedule of A and B on two processors, scheduling A first.
+   *
+   * @param graph The join graph
+   * @param a     Where A is scheduled
+   * @param b     Where B is scheduled
+   * @return The partial schedule
+   */
+  private Schedule createSchedule(Graph graph, ScheduledTask a, ScheduledTask b) {
+    return new Schedule(graph, 2)
+        .extendWithTask(a, graph.getTask("A"))
+        .extendWithTask(b, graph.getTask("B"));
+  }
+
+  /**
+   * Adds the schedule to the dominance table the same way the schedulers do.
+   *
+   * @param dominanceTable The dominance table to add to
+   * @param graph          The graph being scheduled
+   * @param schedule       The schedule to add
+   * @return {@code true} if the schedule is kept, {@code false} if it's pruned
+   */
+  private boolean isKept(ParetoFrontierMap<String> dominanceTable, Graph graph,
+      Schedule schedule) {
+    Dominance dominance = schedule.generateDominance(graph);
+    return dominanceTable.addIfNotDominated(dominance.key(), dominance.vector());
+  }
+
+  @Test
+  void testDominatedVectorsAreRejected() {
+    ParetoFrontierMap<String> map = this.createMap();
+
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{3, 5}));
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{3, 5}));
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{4, 5}));
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{3, 6}));
+    // Neither vector dominates the other, so both are kept
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{2, 6}));
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{2, 7}));
+  }
+
+  @Test
+  void testVectorsAreOnlyComparedWithinAKey() {
+    ParetoFrontierMap<String> map = this.createMap();
+
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{1, 1}));
+    Assertions.assertTrue(map.addIfNotDominated("other key", new int[]{5, 5}));
+  }
+
+  /**
+   * Adding a vector that dominates others in the frontier should evict those vectors, rather than
+   * the eldest vector when the frontier is full.
+   */
+  @Test
+  void testDominatingVectorEvictsDominatedVectors() {
+    ParetoFrontierMap<String> map = new ParetoFrontierMap<>(16, 16, 2);
+
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{1, 9}));
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{5, 5}));
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{4, 4}));
+
+    // {1, 9} is still in the frontier and {5, 5} is covered by {4, 4}
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{2, 9}));
+    Assertions.assertFalse(map.addIfNotDominated("key", new int[]{5, 5}));
+  }
+
+  /**
+   * Once a frontier has {@link Scheduler#MAX_DOMINANCE_FRONTIER_SIZE} vectors in it, adding another
+   * should forget the eldest one and nothing else.
+   */
+  @Test
+  void testFrontierSizeIsBounded() {
+    int maxFrontierSize = Scheduler.MAX_DOMINANCE_FRONTIER_SIZE;
+    ParetoFrontierMap<String> map = new ParetoFrontierMap<>(16, 16, maxFrontierSize);
+
+    for (int i = 0; i <= maxFrontierSize; i++) {
+      Assertions.assertTrue(map.addIfNotDominated("key", new int[]{i, maxFrontierSize - i}));
+    }
+
+    for (int i = 1; i <= maxFrontierSize; i++) {
+      Assertions.assertFalse(map.addIfNotDominated("key", new int[]{i, maxFrontierSize - i}));
+    }
+    Assertions.assertTrue(map.addIfNotDominated("key", new int[]{0, maxFrontierSize}));
+  }
+
+  @Test
+  void testKeyCountIsBounded() {
+    ParetoFrontierMap<String> map = new ParetoFrontierMap<>(2, 16, 16);
+
+    Assertions.assertTrue(map.addIfNotDominated("first", new int[]{1}));
+    Assertions.assertTrue(map.addIfNotDominated("second", new int[]{1}));
+    Assertions.assertTrue(map.addIfNotDominated("third", new int[]{1}));
+
+    Assertions.assertFalse(map.addIfNotDominated("third", new int[]{1}));
+    Assertions.assertTrue(map.addIfNotDominated("first", new int[]{1}));
+  }
+
+  /**
+   * A schedule where B starts later than it needs to should be pruned by the same schedule where it
+   * starts as early as it can.
+   */
+  @Test
+  void testDominatedScheduleIsPruned() {
+    Graph graph = this.createJoinGraph();
+    ParetoFrontierMap<String> dominanceTable = this.createMap();
+    Schedule schedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(0, 3, 1));
+    Schedule delayedSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(1, 4, 1));
+
+    Assertions.assertEquals(schedule.generateDominance(graph).key(),
+        delayedSchedule.generateDominance(graph).key());
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, schedule));
+    Assertions.assertFalse(this.isKept(dominanceTable, graph, delayedSchedule));
+  }
+
+  /**
+   * Swapping the processors of A and B gives an equivalent schedule, which should have the same
+   * key and vector and so be pruned.
+   */
+  @Test
+  void testRelabelledScheduleIsPruned() {
+    Graph graph = this.createJoinGraph();
+    ParetoFrontierMap<String> dominanceTable = this.createMap();
+    Schedule schedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(0, 3, 1));
+    Schedule relabelledSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 1), new ScheduledTask(0, 3, 0));
+
+    Assertions.assertEquals(schedule.generateDominance(graph).key(),
+        relabelledSchedule.generateDominance(graph).key());
+    Assertions.assertArrayEquals(schedule.generateDominance(graph).vector(),
+        relabelledSchedule.generateDominance(graph).vector());
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, schedule));
+    Assertions.assertFalse(this.isKept(dominanceTable, graph, relabelledSchedule));
+  }
+
+  /**
+   * Running A then B on one processor finishes A earlier, while running B then A finishes B
+   * earlier. Neither dominates the other, so both should be kept. A schedule which is worse than
+   * one of them in every way should still be pruned.
+   */
+  @Test
+  void testNonDominatedSchedulesAreKept() {
+    Graph graph = this.createJoinGraph();
+    ParetoFrontierMap<String> dominanceTable = this.createMap();
+    Schedule aFirstSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(2, 5, 0));
+    Schedule bFirstSchedule = this.createSchedule(graph,
+        new ScheduledTask(3, 5, 0), new ScheduledTask(0, 3, 0));
+    Schedule delayedSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(3, 6, 0));
+
+    Assertions.assertEquals(aFirstSchedule.generateDominance(graph).key(),
+        bFirstSchedule.generateDominance(graph).key());
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, aFirstSchedule));
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, bFirstSchedule));
+    Assertions.assertFalse(this.isKept(dominanceTable, graph, delayedSchedule));
+  }
+
+  /**
+   * Schedules with different frontier processors can need different communication, so they should
+   * never be compared even if one finishes everything earlier.
+   */
+  @Test
+  void testSchedulesWithDifferentKeysAreKept() {
+    Graph graph = this.createJoinGraph();
+    ParetoFrontierMap<String> dominanceTable = this.createMap();
+    Schedule parallelSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(0, 3, 1));
+    Schedule sequentialSchedule = this.createSchedule(graph,
+        new ScheduledTask(0, 2, 0), new ScheduledTask(2, 5, 0));
+
+    Assertions.assertNotEquals(parallelSchedule.generateDominance(graph).key(),
+        sequentialSchedule.generateDominance(graph).key());
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, parallelSchedule));
+    Assertions.assertTrue(this.isKept(dominanceTable, graph, sequentialSchedule));
+  }
+
+}
@@ -0,0 +1,94 @@
+package nz.ac.auckland.se306.group12;
+
+import java.util.List;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.ProcessorSweep;
+import nz.ac.auckland.se306.group12.scheduler.ProcessorSweep.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests sweeping the number of processors a graph is scheduled on, including the processor counts
+ * that are filled in without searching.
+ */
+class ProcessorSweepTest {
+
+  private static final int MIN_PROCESSOR_COUNT = 1;
+  private static final int MAX_PROCESSOR_COUNT = 8;
+
+  /**
+   * Without a time limit, every point of the sweep should have an optimal schedule, whether it was
+   * searched for or carried over from fewer processors. Each point is checked against scheduling
+   * the graph from scratch on that many processors.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "./graphs/Nodes_7_OutTree.dot",
+      "./graphs/Nodes_8_Random.dot",
+      "./graphs/Nodes_10_Random.dot",
+      "./graphs/Nodes_11_OutTree.dot"
+  })
+  void testSweepMatchesFullSolve(String path) {
+    Graph graph = TestUtil.loadGraph(path);
+    List<Point> curve = new ProcessorSweep(graph, new DfsScheduler(), null)
+        .sweep(MIN_PROCESSOR_COUNT, MAX_PROCESSOR_COUNT);
+
+    Assertions.assertEquals(MAX_PROCESSOR_COUNT - MIN_PROCESSOR_COUNT + 1, curve.size());
+    for (int i = 0; i < curve.size(); i++) {
+      Point point = curve.get(i);
+      int processorCount = MIN_PROCESSOR_COUNT + i;
+      Schedule schedule = point.schedule();
+      String message = String.format("%s with %d processors", path, processorCount);
+
+      Assertions.assertEquals(processorCount, point.processorCount(), message);
+      ScheduleValidator.assertValidSchedule(schedule, graph);
+      Assertions.assertTrue(point.lowerBound() <= schedule.getLatestEndTime(), message);
+
+      Schedule fullSolve = new DfsScheduler().schedule(graph, processorCount);
+      Assertions.assertEquals(fullSolve.getLatestEndTime(), schedule.getLatestEndTime(), message);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "./graphs/Nodes_7_OutTree.dot",
+      "./graphs/Nodes_8_Random.dot",
+      "./graphs/Nodes_9_SeriesParallel.dot",
+      "./graphs/Nodes_11_OutTree.dot"
+  })
+  void testMakespanNeverIncreasesWithMoreProcessors(String path) {
+    Graph graph = TestUtil.loadGraph(path);
+    List<Point> curve = new ProcessorSweep(graph, new DfsScheduler(), null)
+        .sweep(MIN_PROCESSOR_COUNT, MAX_PROCESSOR_COUNT);
+
+    for (int i = 1; i < curve.size(); i++) {
+      Assertions.assertTrue(curve.get(i).schedule().getLatestEndTime()
+          <= curve.get(i - 1).schedule().getLatestEndTime(), path);
+    }
+  }
+
+  /**
+   * Once the makespan reaches the length of the critical path, more processors can't help, so the
+   * rest of the sweep should be filled in without searching. The optimal makespan of this graph is
+   * 581 from 2 processors onwards.
+   */
+  @Test
+  void testPointsAreCarriedOverOnceOptimal() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_8_Random.dot");
+    List<Point> curve = new ProcessorSweep(graph, new DfsScheduler(), null)
+        .sweep(MIN_PROCESSOR_COUNT, MAX_PROCESSOR_COUNT);
+
+    Assertions.assertTrue(curve.get(0).isSearched());
+    Assertions.assertTrue(curve.get(1).isSearched());
+    for (Point point : curve.subList(2, curve.size())) {
+      Assertions.assertFalse(point.isSearched());
+      Assertions.assertEquals(581, point.schedule().getLatestEndTime());
+      Assertions.assertEquals(581, point.lowerBound());
+    }
+  }
+
+}
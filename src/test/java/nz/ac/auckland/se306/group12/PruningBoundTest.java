@@ -0,0 +1,70 @@
+package nz.ac.auckland.se306.group12;
+
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests the bound that partial schedules are pruned against when a relative optimality gap is
+ * allowed.
+ */
+class PruningBoundTest {
+
+  @Test
+  void testNoIncumbent() {
+    Assertions.assertEquals(Integer.MAX_VALUE, Scheduler.getPruningBound(Integer.MAX_VALUE, 0));
+    Assertions.assertEquals(Integer.MAX_VALUE,
+        Scheduler.getPruningBound(Integer.MAX_VALUE, 0.05));
+  }
+
+  @Test
+  void testNoOptimalityGap() {
+    Assertions.assertEquals(100, Scheduler.getPruningBound(100, 0));
+    Assertions.assertEquals(1, Scheduler.getPruningBound(1, 0));
+  }
+
+  /**
+   * When the incumbent divided by (1 + epsilon) is exactly an integer, a lower bound equal to that
+   * integer times (1 + epsilon) is the incumbent, so it should be pruned.
+   */
+  @Test
+  void testExactQuotient() {
+    Assertions.assertEquals(100, Scheduler.getPruningBound(105, 0.05));
+    Assertions.assertEquals(100, Scheduler.getPruningBound(110, 0.1));
+    Assertions.assertEquals(200, Scheduler.getPruningBound(201, 0.005));
+    Assertions.assertEquals(1000, Scheduler.getPruningBound(1003, 0.003));
+    Assertions.assertEquals(50, Scheduler.getPruningBound(100, 1));
+  }
+
+  /**
+   * When the quotient isn't an integer, it should be rounded up, as rounding down would prune a
+   * lower bound that could still be more than a factor of (1 + epsilon) better than the incumbent.
+   */
+  @Test
+  void testInexactQuotient() {
+    Assertions.assertEquals(101, Scheduler.getPruningBound(106, 0.05));
+    Assertions.assertEquals(101, Scheduler.getPruningBound(104, 0.03));
+    Assertions.assertEquals(1, Scheduler.getPruningBound(1, 0.5));
+  }
+
+  /**
+   * For every incumbent, a lower bound should be pruned exactly when it times (1 + epsilon) is at
+   * least the incumbent. Epsilon is given in thousandths, so the check can be done with integers.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 5, 10, 33, 50, 100, 250, 1000})
+  void testPrunesExactlyWithinGap(int epsilonThousandths) {
+    double epsilon = epsilonThousandths / 1000.0;
+    for (int incumbentMakespan = 1; incumbentMakespan <= 5000; incumbentMakespan++) {
+      int bound = Scheduler.getPruningBound(incumbentMakespan, epsilon);
+
+      Assertions.assertTrue(
+          (long) bound * (1000 + epsilonThousandths) >= (long) incumbentMakespan * 1000);
+      Assertions.assertTrue(
+          (long) (bound - 1) * (1000 + epsilonThousandths) < (long) incumbentMakespan * 1000);
+    }
+  }
+
+}
@@ -0,0 +1,124 @@
+package nz.ac.auckland.se306.group12;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.PortfolioScheduler;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that failures in a scheduler running on its own thread are passed on to whoever is waiting
+ * for its schedule, rather than leaving them waiting forever.
+ */
+class SchedulingJobTest {
+
+  /**
+   * How long to wait for a job that should have already failed before assuming it never will.
+   */
+  private static final long TIMEOUT_SECONDS = 10;
+
+  /**
+   * Creates a scheduler which fails straight away with the given throwable, which may be a checked
+   * exception even though {@link Scheduler#schedule(Graph, int, Duration, Schedule)} doesn't
+   * declare any.
+   *
+   * @param failure The throwable to fail with
+   * @return The failing scheduler
+   */
+  private Scheduler createFailingScheduler(Throwable failure) {
+    return new DfsScheduler(1) {
+      @Override
+      public Schedule schedule(Graph taskGraph, int processorCount, Duration timeLimit,
+          Schedule initialIncumbent) {
+        return SchedulingJobTest.sneakyThrow(failure);
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Throwable> Schedule sneakyThrow(Throwable throwable) throws T {
+    throw (T) throwable;
+  }
+
+  @Test
+  void testRuntimeExceptionCompletesJob() {
+    IllegalStateException failure = new IllegalStateException("Failed");
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_7_OutTree.dot");
+
+    ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+        () -> this.createFailingScheduler(failure)
+            .scheduleAsync(graph, 2, null)
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    Assertions.assertSame(failure, exception.getCause());
+  }
+
+  /**
+   * Errors aren't runtime exceptions, but should still complete the job instead of only killing
+   * its search thread.
+   */
+  @Test
+  void testErrorCompletesJob() {
+    StackOverflowError failure = new StackOverflowError();
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_7_OutTree.dot");
+
+    ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+        () -> this.createFailingScheduler(failure)
+            .scheduleAsync(graph, 2, null)
+            .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    Assertions.assertSame(failure, exception.getCause());
+  }
+
+  /**
+   * The portfolio should only fail if every scheduler in it fails, and should then rethrow the
+   * failure unchanged when it's unchecked.
+   */
+  @Test
+  void testPortfolioRethrowsUncheckedFailures() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_7_OutTree.dot");
+    StackOverflowError error = new StackOverflowError();
+    IllegalStateException runtimeException = new IllegalStateException("Failed");
+
+    Scheduler errorPortfolio = new PortfolioScheduler(List.of(
+        this.createFailingScheduler(error), this.createFailingScheduler(error)));
+    Assertions.assertSame(error,
+        Assertions.assertThrows(StackOverflowError.class, () -> errorPortfolio.schedule(graph, 2)));
+
+    Scheduler runtimePortfolio = new PortfolioScheduler(List.of(
+        this.createFailingScheduler(runtimeException),
+        this.createFailingScheduler(runtimeException)));
+    Assertions.assertSame(runtimeException, Assertions.assertThrows(
+        IllegalStateException.class, () -> runtimePortfolio.schedule(graph, 2)));
+  }
+
+  @Test
+  void testPortfolioWrapsCheckedFailures() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_7_OutTree.dot");
+    IOException failure = new IOException("Failed");
+
+    Scheduler portfolio = new PortfolioScheduler(List.of(
+        this.createFailingScheduler(failure), this.createFailingScheduler(failure)));
+    IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class,
+        () -> portfolio.schedule(graph, 2));
+    Assertions.assertSame(failure, exception.getCause());
+  }
+
+  @Test
+  void testPortfolioIgnoresFailuresIfAnySchedulerSucceeds() {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_7_OutTree.dot");
+
+    Scheduler portfolio = new PortfolioScheduler(List.of(
+        this.createFailingScheduler(new StackOverflowError()), new DfsScheduler(1)));
+    Schedule schedule = portfolio.schedule(graph, 2);
+
+    ScheduleValidator.assertValidSchedule(schedule, graph);
+    Assertions.assertEquals(28, schedule.getLatestEndTime());
+  }
+
+}
@@ -0,0 +1,72 @@
+package nz.ac.auckland.se306.group12;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.SchedulerStatus;
+import nz.ac.auckland.se306.group12.models.SearchSnapshot;
+import nz.ac.auckland.se306.group12.scheduler.Scheduler;
+import nz.ac.auckland.se306.group12.scheduler.SchedulingJob;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Tests the snapshots of a search's progress, polled from another thread while the search is
+ * running, as the visualiser does.
+ */
+class SearchSnapshotTest {
+
+  /**
+   * A graph which takes long enough to schedule for many snapshots to be published. The search is
+   * stopped after {@link #SEARCH_TIME} if it hasn't finished by then.
+   */
+  private static final String GRAPH =
+      "./graphs/optimal/21-nodes/Fork_Join_Nodes_21_CCR_0.10_WeightType_Random#6_Homogeneous-6.dot";
+  private static final int PROCESSOR_COUNT = 6;
+
+  private static final Duration SEARCH_TIME = Duration.ofMillis(300);
+  private static final long TIMEOUT_SECONDS = 10;
+
+  /**
+   * Every snapshot should be at least as far through the search as the one before, and never
+   * claim a lower bound above its own incumbent. Once the search has finished, the latest snapshot
+   * should be of the finished search and hold the schedule that was returned.
+   */
+  @ParameterizedTest
+  @MethodSource("nz.ac.auckland.se306.group12.TestUtil#getAllOptimalSchedulers")
+  void testSnapshotsArePublishedInOrder(Scheduler scheduler) throws Exception {
+    Graph graph = TestUtil.loadGraph(GRAPH);
+    String name = scheduler.getHumanReadableName();
+    SchedulingJob job = scheduler.scheduleAsync(graph, PROCESSOR_COUNT, SEARCH_TIME);
+
+    SearchSnapshot previous = SearchSnapshot.IDLE;
+    boolean isSchedulingSeen = false;
+    while (!job.isDone()) {
+      SearchSnapshot snapshot = scheduler.getSnapshot();
+      isSchedulingSeen |= snapshot.status() == SchedulerStatus.SCHEDULING;
+
+      Assertions.assertTrue(snapshot.searchedCount() >= previous.searchedCount(),
+          String.format("%s: searched %d schedules after %d", name, snapshot.searchedCount(),
+              previous.searchedCount()));
+      Assertions.assertFalse(snapshot.timestamp().isBefore(previous.timestamp()), name);
+      if (snapshot.incumbent() != null) {
+        Assertions.assertTrue(
+            snapshot.lowerBound() <= snapshot.incumbent().getLatestEndTime(),
+            String.format("%s: lower bound of %d is above the incumbent's makespan of %d", name,
+                snapshot.lowerBound(), snapshot.incumbent().getLatestEndTime()));
+      }
+      previous = snapshot;
+      Thread.sleep(1);
+    }
+    Schedule schedule = job.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    SearchSnapshot finalSnapshot = scheduler.getSnapshot();
+    Assertions.assertTrue(isSchedulingSeen, name);
+    Assertions.assertEquals(SchedulerStatus.SCHEDULED, finalSnapshot.status(), name);
+    Assertions.assertSame(schedule, finalSnapshot.incumbent(), name);
+    Assertions.assertTrue(finalSnapshot.searchedCount() >= previous.searchedCount(), name);
+  }
+
+}
@@ -6,7 +6,11 @@ import java.util.List;
 import nz.ac.auckland.se306.group12.io.DotGraphIO;
 import nz.ac.auckland.se306.group12.models.Graph;
 import nz.ac.auckland.se306.group12.models.Task;
+import nz.ac.auckland.se306.group12.scheduler.AStarScheduler;
+import nz.ac.auckland.se306.group12.scheduler.DfsAOScheduler;
 import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.ParallelDfsAOScheduler;
+import nz.ac.auckland.se306.group12.scheduler.PortfolioScheduler;
 import nz.ac.auckland.se306.group12.scheduler.Scheduler;
 import org.junit.jupiter.api.Assertions;
 
@@ -39,6 +43,25 @@ public class TestUtil {
     return List.of(new DfsScheduler(4));
   }
 
+  /**
+   * Returns every optimal scheduler, for the tests that run on a reduced set of graphs. Only the
+   * default scheduler is run on the full sets of graphs, as some of the larger graphs are too slow
+   * for the other schedulers to solve within the timeout.
+   *
+   * @return The schedulers to test
+   * @see #getOptimalSchedulers()
+   */
+  public static List<Scheduler> getAllOptimalSchedulers() {
+    return List.of(
+        new DfsScheduler(4),
+        new AStarScheduler(),
+        new DfsAOScheduler(),
+        new ParallelDfsAOScheduler(4),
+        new PortfolioScheduler(List.of(new DfsScheduler(2), new AStarScheduler(),
+            new DfsAOScheduler()))
+    );
+  }
+
   /**
    * Check that the two graphs are equal including the edges and nodes and the incoming and outgoing
    * edges of all the nodes
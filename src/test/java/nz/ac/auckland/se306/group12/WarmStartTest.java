@@ -0,0 +1,108 @@
+package nz.ac.auckland.se306.group12;
+
+import java.io.File;
+import java.io.IOException;
+import nz.ac.auckland.se306.group12.exceptions.IllegalScheduleException;
+import nz.ac.auckland.se306.group12.io.DotGraphIO;
+import nz.ac.auckland.se306.group12.io.FileIO;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.Schedule;
+import nz.ac.auckland.se306.group12.models.ScheduledTask;
+import nz.ac.auckland.se306.group12.scheduler.DfsScheduler;
+import nz.ac.auckland.se306.group12.scheduler.LocalSearchImprover;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests reading a previously written schedule back in to warm start the search from, as is done
+ * with the <code>-w</code> flag.
+ */
+class WarmStartTest {
+
+  private final DotGraphIO dotGraphIO = new DotGraphIO();
+
+  /**
+   * Writes the contents to a temporary file, which is deleted when the tests finish.
+   *
+   * @param contents The contents of the file
+   * @return The temporary file
+   */
+  private File createTempFile(String contents) throws IOException {
+    File file = File.createTempFile("warm-start", ".dot");
+    file.deleteOnExit();
+    FileIO.writeToFile(contents, file);
+    return file;
+  }
+
+  /**
+   * A schedule that is written out and read back in should re-time to a valid schedule, on the same
+   * number of processors or any other. On the same number of processors, the placement of every
+   * task is unchanged, so the makespan should be too.
+   */
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4})
+  void testRoundTrip(int processorCount) throws IOException {
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_10_Random.dot");
+    Schedule schedule = new DfsScheduler().schedule(graph, processorCount);
+    File scheduleFile = this.createTempFile(
+        this.dotGraphIO.toDotString("Nodes_10_Random-output", schedule, graph));
+
+    ScheduledTask[] placements = this.dotGraphIO.readDotSchedule(scheduleFile, graph);
+    for (int otherProcessorCount = 1; otherProcessorCount <= 4; otherProcessorCount++) {
+      Schedule retimed = new LocalSearchImprover(graph, new DfsScheduler(), otherProcessorCount)
+          .retime(placements);
+
+      ScheduleValidator.assertValidSchedule(retimed, graph);
+      if (otherProcessorCount == processorCount) {
+        Assertions.assertEquals(schedule.getLatestEndTime(), retimed.getLatestEndTime());
+      }
+    }
+  }
+
+  @Test
+  void testNonDotFileIsRejected() throws IOException {
+    Graph graph = TestUtil.loadGraph("./graphs/test1.dot");
+    File scheduleFile = this.createTempFile("This isn't a schedule");
+
+    Assertions.assertThrows(IllegalScheduleException.class,
+        () -> this.dotGraphIO.readDotSchedule(scheduleFile, graph));
+  }
+
+  @Test
+  void testNonIntegerPlacementIsRejected() throws IOException {
+    Graph graph = TestUtil.loadGraph("./graphs/test1.dot");
+    String placedTasks = """
+        B [Weight=3,Start=2,Processor=1];
+        C [Weight=1,Start=6,Processor=1];
+        D [Weight=4,Start=7,Processor=1];
+        E [Weight=2,Start=11,Processor=1];
+        """;
+
+    File badStart = this.createTempFile("digraph \"test1-output\" {\n"
+        + "A [Weight=2,Start=soon,Processor=1];\n" + placedTasks + "}\n");
+    Assertions.assertThrows(IllegalScheduleException.class,
+        () -> this.dotGraphIO.readDotSchedule(badStart, graph));
+
+    File badProcessor = this.createTempFile("digraph \"test1-output\" {\n"
+        + "A [Weight=2,Start=0,Processor=1.5];\n" + placedTasks + "}\n");
+    Assertions.assertThrows(IllegalScheduleException.class,
+        () -> this.dotGraphIO.readDotSchedule(badProcessor, graph));
+  }
+
+  @Test
+  void testUnplacedTaskIsRejected() throws IOException {
+    Graph graph = TestUtil.loadGraph("./graphs/test1.dot");
+    File scheduleFile = this.createTempFile("""
+        digraph "test1-output" {
+        A [Weight=2,Start=0,Processor=1];
+        B [Weight=3,Start=2,Processor=1];
+        }
+        """);
+
+    Assertions.assertThrows(IllegalScheduleException.class,
+        () -> this.dotGraphIO.readDotSchedule(scheduleFile, graph));
+  }
+
+}
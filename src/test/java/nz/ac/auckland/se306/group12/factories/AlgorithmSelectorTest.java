@@ -0,0 +1,166 @@
+package nz.ac.auckland.se306.group12.factories;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+import nz.ac.auckland.se306.group12.TestUtil;
+import nz.ac.auckland.se306.group12.models.Graph;
+import nz.ac.auckland.se306.group12.models.GraphFeatures;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests parsing the algorithm selection model, choosing an algorithm with it and computing the
+ * graph features it uses.
+ */
+class AlgorithmSelectorTest {
+
+  /**
+   * Creates a graph where A is the parent of B and C, which has 3 tasks, 2 edges, a total task
+   * weight of 10, a total edge weight of 5, a width of 2 and a critical path of 7.
+   *
+   * @return The fork graph
+   */
+  private Graph createForkGraph() {
+    Graph graph = new Graph();
+    graph.addTask("A", 2);
+    graph.addTask("B", 3);
+    graph.addTask("C", 5);
+    graph.addEdge("A", "B", 1);
+    graph.addEdge("A", "C", 4);
+    graph.setTopAndBottomLevels();
+    graph.setEquivalentTasks();
+    graph.setWidth();
+    return graph;
+  }
+
+  /**
+   * @param model The rules of the model, one per line
+   * @return An algorithm selector using the model
+   */
+  private AlgorithmSelector createSelector(String model) throws IOException {
+    return new AlgorithmSelector(new BufferedReader(new StringReader(model)));
+  }
+
+  @Test
+  void testGraphFeatures() {
+    GraphFeatures features = GraphFeatures.of(this.createForkGraph(), 4);
+
+    Assertions.assertEquals(3, features.nodes());
+    Assertions.assertEquals(2.0 / 3, features.density(), 1e-9);
+    Assertions.assertEquals(0.5, features.ccr(), 1e-9);
+    Assertions.assertEquals(2, features.width());
+    Assertions.assertEquals(0.7, features.criticalPathRatio(), 1e-9);
+    Assertions.assertEquals(4, features.processors());
+  }
+
+  @Test
+  void testGraphFeaturesByName() {
+    GraphFeatures features = GraphFeatures.of(this.createForkGraph(), 4);
+
+    Assertions.assertEquals(3, features.get("nodes"), 1e-9);
+    Assertions.assertEquals(2.0 / 3, features.get("density"), 1e-9);
+    Assertions.assertEquals(0.5, features.get("ccr"), 1e-9);
+    Assertions.assertEquals(2, features.get("width"), 1e-9);
+    Assertions.assertEquals(0.7, features.get("cpr"), 1e-9);
+    Assertions.assertEquals(4, features.get("processors"), 1e-9);
+    Assertions.assertThrows(IllegalArgumentException.class, () -> features.get("colour"));
+  }
+
+  /**
+   * A graph with a single task has no possible edges and a width of 1, which shouldn't cause a
+   * division by zero.
+   */
+  @Test
+  void testGraphFeaturesOfSingleTask() {
+    Graph graph = new Graph();
+    graph.addTask("A", 0);
+    graph.setTopAndBottomLevels();
+    graph.setWidth();
+
+    GraphFeatures features = GraphFeatures.of(graph, 1);
+
+    Assertions.assertEquals(0, features.density(), 1e-9);
+    Assertions.assertEquals(0, features.ccr(), 1e-9);
+    Assertions.assertEquals(0, features.criticalPathRatio(), 1e-9);
+  }
+
+  @Test
+  void testFirstMatchingRuleIsChosen() throws IOException {
+    AlgorithmSelector selector = this.createSelector("""
+        # A comment, followed by a blank line
+
+        width>2 astar
+        ccr<=0.5 nodes<=3 dfs
+        ao
+        """);
+
+    Assertions.assertEquals("dfs", selector.selectAlgorithm(this.createForkGraph(), 4));
+  }
+
+  @Test
+  void testAtMostIsInclusiveAndGreaterThanIsExclusive() throws IOException {
+    Graph graph = this.createForkGraph();
+
+    Assertions.assertEquals("dfs", this.createSelector("width<=2 dfs").selectAlgorithm(graph, 4));
+    Assertions.assertEquals("ao", this.createSelector("width>2 dfs").selectAlgorithm(graph, 4));
+  }
+
+  @Test
+  void testDefaultAlgorithmWhenNoRuleMatches() throws IOException {
+    AlgorithmSelector selector = this.createSelector("processors>4 astar");
+    Assertions.assertEquals("ao", selector.selectAlgorithm(this.createForkGraph(), 4));
+  }
+
+  @Test
+  void testInvalidConditionIsRejected() {
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width=2 dfs"));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width<2 dfs"));
+  }
+
+  @Test
+  void testInvalidThresholdIsRejected() {
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width<=wide dfs"));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width> dfs"));
+  }
+
+  /**
+   * An unknown feature should be rejected when the model is loaded, rather than when a rule using
+   * it is first checked.
+   */
+  @Test
+  void testUnknownFeatureIsRejected() {
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("colour<=2 dfs"));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("<=2 dfs"));
+  }
+
+  @Test
+  void testUnknownAlgorithmIsRejected() {
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width<=2 bogosort"));
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> this.createSelector("width<=2"));
+  }
+
+  /**
+   * The bundled model should load and choose one of the algorithms it was trained on.
+   */
+  @Test
+  void testBundledModel() {
+    AlgorithmSelector selector = new AlgorithmSelector();
+    Graph graph = TestUtil.loadGraph("./graphs/Nodes_10_Random.dot");
+
+    for (int processorCount = 1; processorCount <= 8; processorCount++) {
+      String algorithm = selector.selectAlgorithm(graph, processorCount);
+      Assertions.assertTrue(Set.of("astar", "dfs", "ao").contains(algorithm), algorithm);
+    }
+  }
+
+}